@@ -1,5 +1,6 @@
 package aoop.asteroids.model;
 
+import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -12,21 +13,60 @@ import java.util.Collection;
 public class AsteroidFactory {
 
     public Collection<Asteroid> getAsteroids(Asteroid asteroid) {
+        ObjectPool<? extends Asteroid> pool;
         if(LargeAsteroid.class.isInstance(asteroid)){
-            ArrayList<Asteroid> list = new ArrayList<>();
-            list.add(new MediumAsteroid(asteroid.getLocation(), asteroid.getVelocityX() * Math.cos(Math.PI / 2) * 1.5 - asteroid.getVelocityY() * Math.sin(Math.PI / 2) * 1.5,
-                    asteroid.getVelocityX() * Math.sin(Math.PI / 2) * 1.5 + asteroid.getVelocityY() * Math.cos(Math.PI / 2) * 1.5));
-            list.add(new MediumAsteroid(asteroid.getLocation(), asteroid.getVelocityX() * Math.cos(-Math.PI / 2) * 1.5 - asteroid.getVelocityY() * Math.sin(-Math.PI / 2) * 1.5,
-                    asteroid.getVelocityX() * Math.sin(-Math.PI / 2) * 1.5 + asteroid.getVelocityY() * Math.cos(-Math.PI / 2) * 1.5));
-            return list;
+            pool = MediumAsteroid.POOL;
         } else if (MediumAsteroid.class.isInstance(asteroid)) {
-            ArrayList<Asteroid> list = new ArrayList<>();
-            list.add(new SmallAsteroid(asteroid.getLocation(), asteroid.getVelocityX() * Math.cos(Math.PI / 2) * 1.5 - asteroid.getVelocityY() * Math.sin(Math.PI / 2) * 1.5,
-                    asteroid.getVelocityX() * Math.sin(Math.PI / 2) * 1.5 + asteroid.getVelocityY() * Math.cos(Math.PI / 2) * 1.5));
-            list.add(new SmallAsteroid(asteroid.getLocation(), asteroid.getVelocityX() * Math.cos(-Math.PI / 2) * 1.5 - asteroid.getVelocityY() * Math.sin(-Math.PI / 2) * 1.5,
-                    asteroid.getVelocityX() * Math.sin(-Math.PI / 2) * 1.5 + asteroid.getVelocityY() * Math.cos(-Math.PI / 2) * 1.5));
-            return list;
+            pool = SmallAsteroid.POOL;
+        } else {
+            return null;
         }
-        return null;
+        ArrayList<Asteroid> list = new ArrayList<>(2);
+        list.add(successor(pool, asteroid, Math.PI / 2));
+        list.add(successor(pool, asteroid, -Math.PI / 2));
+        return list;
     }
-}
\ No newline at end of file
+
+    /**
+     * Takes a successor of an asteroid from a pool and resets it to the location of the asteroid, with the velocity of
+     * the asteroid turned by an angle.
+     *
+     * @param pool     the pool of the successor size.
+     * @param asteroid the asteroid that is destroyed.
+     * @param angle    the angle to turn by.
+     * @return the successor.
+     */
+    private static Asteroid successor(ObjectPool<? extends Asteroid> pool, Asteroid asteroid, double angle) {
+        Asteroid successor = pool.obtain();
+        Point location = asteroid.getLocation();
+        successor.reset(location.x, location.y, successorVelocityX(asteroid.getVelocityX(), asteroid.getVelocityY(), angle),
+                successorVelocityY(asteroid.getVelocityX(), asteroid.getVelocityY(), angle));
+        return successor;
+    }
+
+    /**
+     * Returns the velocity in X direction of a successor, which is the velocity of its predecessor turned by an angle
+     * and made 50 percent higher.
+     *
+     * @param velocityX velocity of the predecessor in X direction.
+     * @param velocityY velocity of the predecessor in Y direction.
+     * @param angle     the angle to turn by.
+     * @return the velocity of the successor in X direction.
+     */
+    static double successorVelocityX(double velocityX, double velocityY, double angle) {
+        return velocityX * Math.cos(angle) * 1.5 - velocityY * Math.sin(angle) * 1.5;
+    }
+
+    /**
+     * Returns the velocity in Y direction of a successor, which is the velocity of its predecessor turned by an angle
+     * and made 50 percent higher.
+     *
+     * @param velocityX velocity of the predecessor in X direction.
+     * @param velocityY velocity of the predecessor in Y direction.
+     * @param angle     the angle to turn by.
+     * @return the velocity of the successor in Y direction.
+     */
+    static double successorVelocityY(double velocityX, double velocityY, double angle) {
+        return velocityX * Math.sin(angle) * 1.5 + velocityY * Math.cos(angle) * 1.5;
+    }
+}
@@ -16,6 +16,11 @@ public class Bullet extends GameObject {
      */
     private int stepsLeft;
 
+    /**
+     * Pool of bullets that are not in use.
+     */
+    static final ObjectPool<Bullet> POOL = new ObjectPool<>(() -> new Bullet(new Point(), 0, 0), 4096);
+
     /**
      * Constructs a new bullet using the given location and velocity
      * parameters. The amount of steps the bullet gets to live is by default
@@ -26,14 +31,14 @@ public class Bullet extends GameObject {
      * @param velocityY velocity of the bullet as projected on the Y-axis.
      */
     public Bullet(Point location, double velocityX, double velocityY) {
-        this(location, velocityX, velocityY, 45);
+        this(location, velocityX, velocityY, EntityStore.BULLET_STEPS);
     }
 
     /**
      * Constructs a new bullet using the given location and velocity
      * parameters. The amount of steps the bullet gets to live is set to the
      * given value. This constructor is primarily used for the clone ()
-     * method.
+     * method and the views of the EntityStore.
      *
      * @param location  location of the bullet.
      * @param velocityX velocity of the bullet as projected on the X-axis.
@@ -41,7 +46,7 @@ public class Bullet extends GameObject {
      * @param stepsLeft amount of steps the bullet is allowed to live.
      * @see #clone()
      */
-    private Bullet(Point location, double velocityX, double velocityY, int stepsLeft) {
+    Bullet(Point location, double velocityX, double velocityY, int stepsLeft) {
         super(location, velocityX, velocityY, 0);
         this.stepsLeft = stepsLeft;
     }
@@ -63,6 +68,38 @@ public class Bullet extends GameObject {
             this.destroy();
     }
 
+    /**
+     * Resets the bullet to a new location, velocity and amount of steps to
+     * live, so that it can be reused.
+     *
+     * @param locationX location on the X axis.
+     * @param locationY location on the Y axis.
+     * @param velocityX velocity of the bullet as projected on the X-axis.
+     * @param velocityY velocity of the bullet as projected on the Y-axis.
+     * @param stepsLeft amount of steps the bullet is allowed to live.
+     */
+    void reset(double locationX, double locationY, double velocityX, double velocityY, int stepsLeft) {
+        this.reset(locationX, locationY, velocityX, velocityY);
+        this.stepsLeft = stepsLeft;
+    }
+
+    /**
+     * Gives the bullet back to the bullet pool.
+     */
+    @Override
+    void recycle() {
+        POOL.release(this);
+    }
+
+    /**
+     * Returns the amount of steps this bullet still is allowed to live.
+     *
+     * @return the amount of steps left.
+     */
+    int getStepsLeft() {
+        return this.stepsLeft;
+    }
+
     /**
      * Clones the bullet into an exact copy.
      */
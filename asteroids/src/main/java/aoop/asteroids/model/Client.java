@@ -2,8 +2,8 @@ package aoop.asteroids.model;
 
 import java.io.Serializable;
 import java.net.InetAddress;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 /**
  * The Client represents one player. It contain a spaceship, its collection of bullets, and the address and port of the player corresponding to that ship.
@@ -12,13 +12,13 @@ import java.util.Collection;
 public class Client implements Serializable {
 
     private Spaceship ship;
-    private Collection<Bullet> bullets;
+    private volatile EntityStore<Bullet> bullets;
     private InetAddress address;
     private int port;
 
     public Client(InetAddress address, int port) {
         this.ship = new Spaceship();
-        this.bullets = new ArrayList<>();
+        this.bullets = EntityStore.forBullets();
         this.address = address;
         this.port = port;
     }
@@ -27,7 +27,31 @@ public class Client implements Serializable {
         return ship;
     }
 
+    /**
+     * Returns views of the bullets of this client.
+     *
+     * @return a new collection of bullets.
+     */
     public Collection<Bullet> getBullets() {
+        return bullets.views();
+    }
+
+    /**
+     * Passes a view of every bullet of this client to an action. The views
+     * are reused afterwards, so the action must not keep them.
+     *
+     * @param action the action to perform on the bullets.
+     */
+    public void forEachBullet(Consumer<? super Bullet> action) {
+        bullets.forEach(action);
+    }
+
+    /**
+     * Returns the store that keeps the bullets of this client.
+     *
+     * @return the bullet store.
+     */
+    EntityStore<Bullet> getBulletStore() {
         return bullets;
     }
 
@@ -43,8 +67,15 @@ public class Client implements Serializable {
         this.ship = ship;
     }
 
+    /**
+     * Replaces the bullets of this client by a new store, like Game.setBullets(Collection).
+     *
+     * @param bullets the new bullets.
+     */
     public void setBullets(Collection<Bullet> bullets) {
-        this.bullets = bullets;
+        EntityStore<Bullet> store = EntityStore.forBullets();
+        store.load(bullets);
+        this.bullets = store;
     }
     /**
      * Creates an exact clone of this spaceship.
@@ -52,7 +83,7 @@ public class Client implements Serializable {
     public Client clone() {
         Client returnClone = new ClientBuilder().setAddress(this.getAddress()).setPort(this.getPort()).createClient();
         returnClone.setShip(this.ship);
-        returnClone.setBullets(this.bullets);
+        returnClone.bullets = this.bullets;
         return returnClone;
     }
 }
@@ -0,0 +1,422 @@
+package aoop.asteroids.model;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * The entity store keeps the state of either the bullets or the asteroids of a
+ * game in parallel arrays of primitives, instead of one heap object per
+ * entity. Entity i is at location (x[i], y[i]), moves with velocity
+ * (velocityX[i], velocityY[i]) and has radius radius[i]. Bullets also count
+ * down the steps they have left to live.
+ * <p>
+ * A game tick moves all entities in one loop over the arrays, and removes the
+ * destroyed ones by moving the last entity into their slot. The arrays only
+ * grow, so a tick does not allocate once the store has grown to the largest
+ * number of entities it holds. The order of the entities is therefore not
+ * kept.
+ * <p>
+ * The rest of the program sees the entities as game objects. Those are views
+ * made by view(int), which copy the state of an entity and are not updated
+ * afterwards, just like the clones the game handed out before. Views come
+ * from the object pools; the ones this package uses only briefly, while
+ * painting or loading a received game, go back to the pools afterwards.
+ *
+ * @param <T> the type of the game objects the entities are viewed as.
+ */
+class EntityStore<T extends GameObject> implements Serializable {
+
+    /**
+     * Number of steps a new bullet gets to live.
+     */
+    static final int BULLET_STEPS = 45;
+
+    /**
+     * Radii of the large, medium and small asteroids.
+     */
+    static final int LARGE_RADIUS = 40, MEDIUM_RADIUS = 20, SMALL_RADIUS = 10;
+
+    /**
+     * Holds true if this store keeps bullets, false if it keeps asteroids.
+     */
+    private final boolean bullets;
+
+    /**
+     * Number of entities in the store.
+     */
+    private int size;
+
+    private transient double[] x, y, velocityX, velocityY;
+    private transient int[] radius, stepsTilCollide, stepsLeft;
+    private transient boolean[] destroyed;
+
+    private EntityStore(boolean bullets) {
+        this.bullets = bullets;
+        this.allocate(16);
+    }
+
+    /**
+     * Creates an empty store for bullets.
+     *
+     * @return the new store.
+     */
+    static EntityStore<Bullet> forBullets() {
+        return new EntityStore<>(true);
+    }
+
+    /**
+     * Creates an empty store for asteroids.
+     *
+     * @return the new store.
+     */
+    static EntityStore<Asteroid> forAsteroids() {
+        return new EntityStore<>(false);
+    }
+
+    private void allocate(int capacity) {
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.velocityX = new double[capacity];
+        this.velocityY = new double[capacity];
+        this.radius = new int[capacity];
+        this.stepsTilCollide = new int[capacity];
+        this.stepsLeft = new int[capacity];
+        this.destroyed = new boolean[capacity];
+    }
+
+    private void grow() {
+        double[] x = this.x, y = this.y, velocityX = this.velocityX, velocityY = this.velocityY;
+        int[] radius = this.radius, stepsTilCollide = this.stepsTilCollide, stepsLeft = this.stepsLeft;
+        boolean[] destroyed = this.destroyed;
+        this.allocate(2 * x.length);
+        System.arraycopy(x, 0, this.x, 0, this.size);
+        System.arraycopy(y, 0, this.y, 0, this.size);
+        System.arraycopy(velocityX, 0, this.velocityX, 0, this.size);
+        System.arraycopy(velocityY, 0, this.velocityY, 0, this.size);
+        System.arraycopy(radius, 0, this.radius, 0, this.size);
+        System.arraycopy(stepsTilCollide, 0, this.stepsTilCollide, 0, this.size);
+        System.arraycopy(stepsLeft, 0, this.stepsLeft, 0, this.size);
+        System.arraycopy(destroyed, 0, this.destroyed, 0, this.size);
+    }
+
+    /**
+     * Returns the number of entities in the store.
+     *
+     * @return the number of entities.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds a new entity that is not allowed to collide for the first 3 steps,
+     * like a new game object.
+     *
+     * @param x         location on the X axis.
+     * @param y         location on the Y axis.
+     * @param velocityX velocity in X direction.
+     * @param velocityY velocity in Y direction.
+     * @param radius    radius of the entity.
+     * @param stepsLeft amount of steps a bullet is allowed to live.
+     * @return the index of the new entity.
+     */
+    int add(double x, double y, double velocityX, double velocityY, int radius, int stepsLeft) {
+        if (this.size == this.x.length) this.grow();
+        int i = this.size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.velocityX[i] = velocityX;
+        this.velocityY[i] = velocityY;
+        this.radius[i] = radius;
+        this.stepsTilCollide[i] = 3;
+        this.stepsLeft[i] = stepsLeft;
+        this.destroyed[i] = false;
+        return i;
+    }
+
+    /**
+     * Replaces the entities in the store with the state of some game objects.
+     * This is only done to a new store, before it is shared with the game
+     * thread, since the store is not synchronized.
+     *
+     * @param objects the bullets or asteroids to store.
+     */
+    void load(Collection<? extends T> objects) {
+        this.size = 0;
+        for (T object : objects) {
+            int i = this.add(object.locationX, object.locationY, object.velocityX, object.velocityY, object.radius,
+                    this.bullets ? ((Bullet) object).getStepsLeft() : 0);
+            this.stepsTilCollide[i] = object.stepsTilCollide;
+            this.destroyed[i] = object.destroyed;
+        }
+    }
+
+    /**
+     * Returns a store with the same entities as this one.
+     *
+     * @return a copy of the store.
+     */
+    EntityStore<T> copy() {
+        EntityStore<T> copy = new EntityStore<>(this.bullets);
+        for (int i = 0; i < this.size; i++) {
+            copy.add(this.x[i], this.y[i], this.velocityX[i], this.velocityY[i], this.radius[i], this.stepsLeft[i]);
+            copy.stepsTilCollide[i] = this.stepsTilCollide[i];
+            copy.destroyed[i] = this.destroyed[i];
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the location of an entity on the X axis.
+     *
+     * @param i the index of the entity.
+     * @return the location on the X axis.
+     */
+    double getX(int i) {
+        return this.x[i];
+    }
+
+    /**
+     * Returns the location of an entity on the Y axis.
+     *
+     * @param i the index of the entity.
+     * @return the location on the Y axis.
+     */
+    double getY(int i) {
+        return this.y[i];
+    }
+
+    /**
+     * Returns the radius of an entity.
+     *
+     * @param i the index of the entity.
+     * @return radius of the entity in amount of pixels.
+     */
+    int getRadius(int i) {
+        return this.radius[i];
+    }
+
+    /**
+     * Destroys an entity. It is removed by the next removeDestroyed().
+     *
+     * @param i the index of the entity.
+     */
+    void destroy(int i) {
+        this.destroyed[i] = true;
+    }
+
+    /**
+     * Returns whether an entity is destroyed.
+     *
+     * @param i the index of the entity.
+     * @return true if the entity is destroyed, false otherwise.
+     */
+    boolean isDestroyed(int i) {
+        return this.destroyed[i];
+    }
+
+    /**
+     * Moves all entities by their velocity, wrapping around the edges of the
+     * world, in the same way as the nextStep() methods of Asteroid and Bullet.
+     * Bullets that ran out of steps are destroyed.
+     */
+    void step() {
+        int n = this.size;
+        double[] x = this.x, y = this.y, velocityX = this.velocityX, velocityY = this.velocityY;
+        int[] stepsTilCollide = this.stepsTilCollide;
+        for (int i = 0; i < n; i++) {
+            stepsTilCollide[i] = Math.max(0, stepsTilCollide[i] - 1);
+            x[i] = (800 + x[i] + velocityX[i]) % 800;
+            y[i] = (800 + y[i] + velocityY[i]) % 800;
+        }
+        if (this.bullets) {
+            int[] stepsLeft = this.stepsLeft;
+            boolean[] destroyed = this.destroyed;
+            for (int i = 0; i < n; i++) {
+                if (--stepsLeft[i] < 0) destroyed[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Checks whether an entity collides with a game object, in the same way as
+     * GameObject.collides(GameObject).
+     *
+     * @param i     the index of the entity.
+     * @param other the other object that it may collide with.
+     * @return true if the entity collides with the object, false otherwise.
+     */
+    boolean collides(int i, GameObject other) {
+        double distX = this.x[i] - (int) other.locationX;
+        double distY = this.y[i] - (int) other.locationY;
+        return Math.sqrt(distX * distX + distY * distY) < this.radius[i] + other.radius
+                && this.stepsTilCollide[i] == 0 && other.stepsTilCollide == 0;
+    }
+
+    /**
+     * Checks whether an entity collides with an entity of another store, in
+     * the same way as GameObject.collides(GameObject).
+     *
+     * @param i      the index of the entity.
+     * @param others the store of the other entity.
+     * @param j      the index of the other entity.
+     * @return true if the entities collide, false otherwise.
+     */
+    boolean collides(int i, EntityStore<?> others, int j) {
+        double distX = this.x[i] - (int) others.x[j];
+        double distY = this.y[i] - (int) others.y[j];
+        return Math.sqrt(distX * distX + distY * distY) < this.radius[i] + others.radius[j]
+                && this.stepsTilCollide[i] == 0 && others.stepsTilCollide[j] == 0;
+    }
+
+    /**
+     * Removes all destroyed entities. A destroyed large or medium asteroid is
+     * replaced by its two successors, as made by the AsteroidFactory.
+     */
+    void removeDestroyed() {
+        if (!this.bullets) {
+            int n = this.size;
+            for (int i = 0; i < n; i++) {
+                if (this.destroyed[i]) this.split(i);
+            }
+        }
+        int i = 0;
+        while (i < this.size) {
+            if (this.destroyed[i]) this.move(--this.size, i);
+            else i++;
+        }
+    }
+
+    /**
+     * Adds the successors of an asteroid.
+     *
+     * @param i the index of the asteroid.
+     */
+    private void split(int i) {
+        int successor;
+        if (this.radius[i] == LARGE_RADIUS) successor = MEDIUM_RADIUS;
+        else if (this.radius[i] == MEDIUM_RADIUS) successor = SMALL_RADIUS;
+        else return;
+        int x = (int) this.x[i];
+        int y = (int) this.y[i];
+        double velocityX = this.velocityX[i];
+        double velocityY = this.velocityY[i];
+        this.add(x, y, AsteroidFactory.successorVelocityX(velocityX, velocityY, Math.PI / 2),
+                AsteroidFactory.successorVelocityY(velocityX, velocityY, Math.PI / 2), successor, 0);
+        this.add(x, y, AsteroidFactory.successorVelocityX(velocityX, velocityY, -Math.PI / 2),
+                AsteroidFactory.successorVelocityY(velocityX, velocityY, -Math.PI / 2), successor, 0);
+    }
+
+    private void move(int from, int to) {
+        this.x[to] = this.x[from];
+        this.y[to] = this.y[from];
+        this.velocityX[to] = this.velocityX[from];
+        this.velocityY[to] = this.velocityY[from];
+        this.radius[to] = this.radius[from];
+        this.stepsTilCollide[to] = this.stepsTilCollide[from];
+        this.stepsLeft[to] = this.stepsLeft[from];
+        this.destroyed[to] = this.destroyed[from];
+    }
+
+    /**
+     * Returns a game object with the state of an entity. Asteroids are viewed
+     * as large, medium or small asteroids according to their radius. The
+     * object is taken from the pool of its class.
+     *
+     * @param i the index of the entity.
+     * @return a game object that is not updated with the entity.
+     */
+    @SuppressWarnings("unchecked")
+    T view(int i) {
+        GameObject view;
+        if (this.bullets) {
+            Bullet bullet = Bullet.POOL.obtain();
+            bullet.reset(this.x[i], this.y[i], this.velocityX[i], this.velocityY[i], this.stepsLeft[i]);
+            view = bullet;
+        } else {
+            if (this.radius[i] == LARGE_RADIUS) view = LargeAsteroid.POOL.obtain();
+            else if (this.radius[i] == MEDIUM_RADIUS) view = MediumAsteroid.POOL.obtain();
+            else if (this.radius[i] == SMALL_RADIUS) view = SmallAsteroid.POOL.obtain();
+            else view = new Asteroid(new Point(), 0, 0, this.radius[i]);
+            view.reset(this.x[i], this.y[i], this.velocityX[i], this.velocityY[i]);
+        }
+        view.stepsTilCollide = this.stepsTilCollide[i];
+        view.destroyed = this.destroyed[i];
+        return (T) view;
+    }
+
+    /**
+     * Returns game objects with the state of all entities.
+     *
+     * @return a new collection of views.
+     */
+    Collection<T> views() {
+        Collection<T> views = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) views.add(this.view(i));
+        return views;
+    }
+
+    /**
+     * Passes a view of every entity to an action, and recycles the view once
+     * the action returns, so the action must not keep it.
+     *
+     * @param action the action to perform on the views.
+     */
+    void forEach(Consumer<? super T> action) {
+        for (int i = 0; i < this.size; i++) {
+            T view = this.view(i);
+            action.accept(view);
+            view.recycle();
+        }
+    }
+
+    /**
+     * Recycles views made by views() once they have been loaded into a store
+     * and nothing refers to them anymore.
+     *
+     * @param views the views that are not used anymore.
+     */
+    static void recycle(Collection<? extends GameObject> views) {
+        for (GameObject view : views) view.recycle();
+    }
+
+    /**
+     * Writes only the entities that are in use, not the spare room of the
+     * arrays.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < this.size; i++) {
+            out.writeDouble(this.x[i]);
+            out.writeDouble(this.y[i]);
+            out.writeDouble(this.velocityX[i]);
+            out.writeDouble(this.velocityY[i]);
+            out.writeInt(this.radius[i]);
+            out.writeInt(this.stepsTilCollide[i]);
+            out.writeInt(this.stepsLeft[i]);
+            out.writeBoolean(this.destroyed[i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.allocate(Math.max(16, this.size));
+        for (int i = 0; i < this.size; i++) {
+            this.x[i] = in.readDouble();
+            this.y[i] = in.readDouble();
+            this.velocityX[i] = in.readDouble();
+            this.velocityY[i] = in.readDouble();
+            this.radius[i] = in.readInt();
+            this.stepsTilCollide[i] = in.readInt();
+            this.stepsLeft[i] = in.readInt();
+            this.destroyed[i] = in.readBoolean();
+        }
+    }
+
+}
@@ -14,6 +14,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Observable;
 import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * The game class is the backbone of all simulations of the asteroid game. It
@@ -55,14 +57,15 @@ public class Game extends Observable implements Runnable, Serializable {
     private Spaceship ship;
 
     /**
-     * List of bullets.
+     * Store of the bullets of the player. Only the game thread changes a
+     * store once it is in this field; other threads replace the whole store.
      */
-    private Collection<Bullet> bullets;
+    private volatile EntityStore<Bullet> bullets;
 
     /**
-     * List of asteroids.
+     * Store of the asteroids, which is replaced like the bullet store.
      */
-    private Collection<Asteroid> asteroids;
+    private volatile EntityStore<Asteroid> asteroids;
 
     /**
      * Random number generator.
@@ -116,6 +119,62 @@ public class Game extends Observable implements Runnable, Serializable {
 
     private int clientIndex;
 
+    /**
+     * Grid of the asteroids, used to find the asteroids near an object.
+     */
+
+    private transient SpatialGrid asteroidGrid;
+
+    /**
+     * Grid of the ships of the player and all clients.
+     */
+
+    private transient SpatialGrid shipGrid;
+
+    /**
+     * The ships put in the ship grid, kept to avoid a new list every tick.
+     */
+
+    private transient ArrayList<Spaceship> ships;
+
+    /**
+     * Largest number of game ticks per second, above which a tick period
+     * would be too short to measure.
+     */
+
+    public static final int MAX_TICK_RATE = 1000;
+
+    /**
+     * Default number of game ticks per second, which can be changed with the
+     * asteroids.tickRate system property. Every tick moves the objects a fixed
+     * distance, so the tick rate sets the speed of the game, not only how
+     * often it is updated: at 50 Hz the game runs twice as fast as at 25 Hz.
+     */
+
+    public static final int DEFAULT_TICK_RATE = defaultTickRate();
+
+    /**
+     * Maximal number of ticks the game loop performs in a row to catch up
+     * after it fell behind. Ticks beyond this are skipped.
+     */
+
+    private static final int MAX_CATCH_UP = 5;
+
+    /**
+     * Number of game ticks per second.
+     */
+
+    private volatile int tickRate = DEFAULT_TICK_RATE;
+
+    /**
+     * Statistics of the ticks performed by run(). It is created once when the
+     * game is constructed or deserialized, and read by other threads.
+     *
+     * @see #readObject(ObjectInputStream)
+     */
+
+    private transient volatile TickStatistics tickStatistics = new TickStatistics();
+
     public int getClientIndex() {
         return clientIndex;
     }
@@ -154,8 +213,8 @@ public class Game extends Observable implements Runnable, Serializable {
 
     public Game(Game dummyGame) {
         this.ship = dummyGame.ship.clone();
-        this.bullets = dummyGame.cloneBullets();
-        this.asteroids = dummyGame.cloneAsteroids();
+        this.bullets = dummyGame.bullets.copy();
+        this.asteroids = dummyGame.asteroids.copy();
         this.clients = dummyGame.cloneClients();
     }
 
@@ -179,8 +238,8 @@ public class Game extends Observable implements Runnable, Serializable {
         this.aborted = false;
         this.cycleCounter = 0;
         this.asteroidsLimit = 7;
-        this.bullets = new ArrayList<>();
-        this.asteroids = new ArrayList<>();
+        this.bullets = EntityStore.forBullets();
+        this.asteroids = EntityStore.forAsteroids();
         this.ship.reinit();
         this.clients = new ArrayList<>();
     }
@@ -213,9 +272,7 @@ public class Game extends Observable implements Runnable, Serializable {
      * @return a clone of the asteroid set.
      */
     public Collection<Asteroid> getAsteroids() {
-        Collection<Asteroid> c = new ArrayList<>();
-        for (Asteroid a : this.asteroids) c.add(a.clone());
-        return c;
+        return this.asteroids.views();
     }
 
     /**
@@ -225,12 +282,7 @@ public class Game extends Observable implements Runnable, Serializable {
      */
 
     public Collection<Asteroid> cloneAsteroids() {
-        Collection<Asteroid> newList = new ArrayList<>();
-        for (Asteroid asteroid : this.asteroids) {
-            Asteroid newAsteroid = asteroid.clone();
-            newList.add(newAsteroid);
-        }
-        return newList;
+        return this.asteroids.views();
     }
 
     /**
@@ -239,9 +291,7 @@ public class Game extends Observable implements Runnable, Serializable {
      * @return a clone of the bullet set.
      */
     public Collection<Bullet> getBullets() {
-        Collection<Bullet> c = new ArrayList<>();
-        for (Bullet b : this.bullets) c.add(b.clone());
-        return c;
+        return this.bullets.views();
     }
 
     /**
@@ -251,12 +301,27 @@ public class Game extends Observable implements Runnable, Serializable {
      */
 
     public Collection<Bullet> cloneBullets() {
-        Collection<Bullet> newList = new ArrayList<>();
-        for (Bullet bullet : this.bullets) {
-            Bullet newBullet = bullet.clone();
-            newList.add(newBullet);
-        }
-        return newList;
+        return this.bullets.views();
+    }
+
+    /**
+     * Passes a view of every asteroid to an action, without building a
+     * collection. The views are reused afterwards, so the action must not
+     * keep them.
+     *
+     * @param action the action to perform on the asteroids.
+     */
+    public void forEachAsteroid(Consumer<? super Asteroid> action) {
+        this.asteroids.forEach(action);
+    }
+
+    /**
+     * Passes a view of every bullet to an action, like forEachAsteroid.
+     *
+     * @param action the action to perform on the bullets.
+     */
+    public void forEachBullet(Consumer<? super Bullet> action) {
+        this.bullets.forEach(action);
     }
 
     /**
@@ -275,34 +340,36 @@ public class Game extends Observable implements Runnable, Serializable {
     }
 
     /**
-     * Method invoked at every game tick. It updates all game objects first.
-     * Then it adds a bullet if the player is firing. Afterwards it checks all
-     * objects for collisions and removes the destroyed objects. Finally the
-     * game tick counter is updated and a new asteroid is spawn upon every
-     * 200th game tick.
+     * Method invoked at every game tick, after the clients have been updated.
+     * It updates all game objects first. Then it adds a bullet if the player
+     * is firing. Afterwards it checks the objects of the player and all
+     * clients for collisions in a single pass and removes the destroyed
+     * objects. Finally the game tick counter is updated, a new asteroid is
+     * spawn upon every 200th game tick and the observers are notified once.
+     *
+     * @see #updateClients()
      */
     private void update() {
-        for (Asteroid a : this.asteroids) a.nextStep();
-        for (Bullet b : this.bullets) b.nextStep();
-        if (!this.getPlayer().getNickName().equals(" ")) {
+        // The stores may be replaced by a network thread, so the tick uses the ones it started with.
+        EntityStore<Asteroid> asteroids = this.asteroids;
+        EntityStore<Bullet> bullets = this.bullets;
+        asteroids.step();
+        bullets.step();
+        if (!this.ship.getNickName().equals(" ")) {
             this.ship.nextStep();
-            if (this.ship.isFiring()) {
-                double direction = this.ship.getDirection();
-                this.bullets.add(new Bullet(this.ship.getLocation(), this.ship.getVelocityX() + Math.sin(direction) * 15, this.ship.getVelocityY() - Math.cos(direction) * 15));
-                this.ship.setFired();
-            }
+            this.fire(this.ship, bullets);
         } else {
             if(asteroids.size()<this.asteroidsLimit) {
                 for (int i = 0; i < this.asteroidsLimit; i++) {
-                    this.addRandomAsteroid();
+                    this.addRandomAsteroid(asteroids);
                 }
             }
         }
 
-        this.checkCollisions();
-        this.removeDestroyedObjects();
+        this.checkCollisions(asteroids, bullets);
+        this.removeDestroyedObjects(asteroids, bullets);
 
-        if (this.cycleCounter == 0 && this.asteroids.size() < this.asteroidsLimit) this.addRandomAsteroid();
+        if (this.cycleCounter == 0 && asteroids.size() < this.asteroidsLimit) this.addRandomAsteroid(asteroids);
         this.cycleCounter++;
         this.cycleCounter %= 200;
 
@@ -312,181 +379,173 @@ public class Game extends Observable implements Runnable, Serializable {
     }
 
     /**
-     * Does the same as the previous function, but executes the same code for each client in the clients list of the model.
-     * The checkCollisions and removeDestroyedObjects functions have been updated to facilitate the interaction between the clients and
-     * the asteroids of the model.
+     * Does the same as the first part of the previous function for each client in the clients list of the model: it
+     * updates the ship and bullets of the client and adds a bullet if the client is firing. Collisions of the clients
+     * are checked together with those of the player in update().
      */
 
     public void updateClients() {
         for (Client client : this.clients) {
-            for (Bullet b : client.getBullets()) b.nextStep();
+            client.getBulletStore().step();
             client.getShip().nextStep();
+            this.fire(client.getShip(), client.getBulletStore());
+        }
+    }
 
-            if (client.getShip().isFiring()) {
-                double direction = client.getShip().getDirection();
-                client.getBullets().add(new Bullet(client.getShip().getLocation(), client.getShip().getVelocityX() + Math.sin(direction) * 15, client.getShip().getVelocityY() - Math.cos(direction) * 15));
-                client.getShip().setFired();
-            }
-
-            this.checkCollisionsClient(client);
-            this.removeDestroyedObjectsClient(client);
-
-            this.setChanged();
-            this.notifyObservers();
+    /**
+     * Adds a bullet in front of a ship if it is firing.
+     *
+     * @param ship    the ship that may fire.
+     * @param bullets the bullets of the ship.
+     */
+    private void fire(Spaceship ship, EntityStore<Bullet> bullets) {
+        if (ship.isFiring()) {
+            double direction = ship.getDirection();
+            bullets.add((int) ship.locationX, (int) ship.locationY, ship.getVelocityX() + Math.sin(direction) * 15, ship.getVelocityY() - Math.cos(direction) * 15, 0, EntityStore.BULLET_STEPS);
+            ship.setFired();
         }
     }
 
     /**
      * Adds a randomly sized asteroid at least 50 pixels removed from the
      * player.
+     *
+     * @param asteroids the store to add the asteroid to.
      */
-    private void addRandomAsteroid() {
+    private void addRandomAsteroid(EntityStore<Asteroid> asteroids) {
         int prob = Game.rng.nextInt(3000);
-        Point loc, shipLoc = this.ship.getLocation();
-        int x, y;
+        int locX, locY, x, y;
         do {
-            loc = new Point(Game.rng.nextInt(800), Game.rng.nextInt(800));
-            x = loc.x - shipLoc.x;
-            y = loc.y - shipLoc.y;
+            locX = Game.rng.nextInt(800);
+            locY = Game.rng.nextInt(800);
+            x = locX - (int) this.ship.locationX;
+            y = locY - (int) this.ship.locationY;
         } while (Math.sqrt(x * x + y * y) < 50);
 
-        if (prob < 1000)
-            this.asteroids.add(new LargeAsteroid(loc, Game.rng.nextDouble() * 6 - 3, Game.rng.nextDouble() * 6 - 3));
-        else if (prob < 2000)
-            this.asteroids.add(new MediumAsteroid(loc, Game.rng.nextDouble() * 6 - 3, Game.rng.nextDouble() * 6 - 3));
-        else this.asteroids.add(new SmallAsteroid(loc, Game.rng.nextDouble() * 6 - 3, Game.rng.nextDouble() * 6 - 3));
+        int radius;
+        if (prob < 1000) radius = EntityStore.LARGE_RADIUS;
+        else if (prob < 2000) radius = EntityStore.MEDIUM_RADIUS;
+        else radius = EntityStore.SMALL_RADIUS;
+        double velocityX = Game.rng.nextDouble() * 6 - 3;
+        asteroids.add(locX, locY, velocityX, Game.rng.nextDouble() * 6 - 3, radius, 0);
     }
 
     /**
-     * Checks all objects for collisions and marks them as destroyed upon
-     * collision. All objects can collide with objects of a different type,
-     * but not with objects of the same type. I.e. bullets cannot collide with
-     * bullets etc.
-     */
-    private void checkCollisions() { // Destroy all objects that collide.
-        for (Bullet b : this.bullets) { // For all bullets.
-            for (Asteroid a : this.asteroids) { // Check all bullet/asteroid combinations.
-                if (a.collides(b)) { // Collision -> destroy both objects.
-                    b.destroy();
-                    a.destroy();
-                }
-            }
-
-            for (Client c : this.clients) {
-                if (c.getShip().collides(b)) {
-                    b.destroy();
-                    c.getShip().destroy();
-                }
-            }
-
-            if (b.collides(this.ship)) { // Collision with playerß -> destroy both objects
-                b.destroy();
-                this.ship.destroy();
-            }
-        }
-
-        for (Asteroid a : this.asteroids) { // For all asteroids, no cross check with bullets required.
-            if (a.collides(this.ship)) { // Collision with player -> destroy both objects.
-                a.destroy();
-                this.ship.destroy();
-            }
+     * Checks all objects of the player and all clients for collisions and
+     * marks them as destroyed upon collision. All objects can collide with
+     * objects of a different type, but not with objects of the same type.
+     * I.e. bullets cannot collide with bullets etc. Every pair of objects is
+     * tested at most once per tick. A destroyed asteroid scores a point for
+     * the ship that fired the bullet or flew into it.
+     *
+     * @param asteroids the asteroids of this tick.
+     * @param bullets   the bullets of the player in this tick.
+     */
+    private void checkCollisions(EntityStore<Asteroid> asteroids, EntityStore<Bullet> bullets) { // Destroy all objects that collide.
+        this.rebuildGrids(asteroids);
+        this.checkBulletCollisions(asteroids, bullets, this.ship);
+        this.checkShipCollisions(asteroids, this.ship);
+        for (Client c : this.clients) {
+            this.checkBulletCollisions(asteroids, c.getBulletStore(), c.getShip());
+            this.checkShipCollisions(asteroids, c.getShip());
         }
     }
 
     /**
-     * Takes in a client and computes its interactions with the current model just like the function above.
+     * Puts the asteroids and the ships of the player and all clients in
+     * their grids, so that collision checks only test objects that are near
+     * each other.
      *
-     * @param client input client
+     * @param asteroids the asteroids of this tick.
      */
+    private void rebuildGrids(EntityStore<Asteroid> asteroids) {
+        if (this.asteroidGrid == null) {
+            this.asteroidGrid = new SpatialGrid();
+            this.shipGrid = new SpatialGrid();
+            this.ships = new ArrayList<>();
+        }
+        this.ships.clear();
+        for (Client c : this.clients) this.ships.add(c.getShip());
+        this.ships.add(this.ship);
+        this.asteroidGrid.rebuild(asteroids);
+        this.shipGrid.rebuild(this.ships);
+    }
 
-    private void checkCollisionsClient(Client client) { // Destroy all objects that collide.
-        for (Bullet b : client.getBullets()) { // For all bullets.
-            for (Asteroid a : this.asteroids) { // Check all bullet/asteroid combinations.
-                if (a.collides(b)) { // Collision -> destroy both objects.
-                    b.destroy();
-                    a.destroy();
+    /**
+     * Destroys the bullets that hit an asteroid or a ship, together with what
+     * they hit.
+     *
+     * @param asteroids the asteroids of this tick.
+     * @param bullets   the bullets to check.
+     * @param owner     the ship that fired the bullets.
+     */
+    private void checkBulletCollisions(EntityStore<Asteroid> asteroids, EntityStore<Bullet> bullets, Spaceship owner) {
+        for (int b = 0; b < bullets.size(); b++) { // For all bullets.
+            int near = this.asteroidGrid.query(bullets, b);
+            for (int i = 0; i < near; i++) { // Check all nearby bullet/asteroid combinations.
+                int a = this.asteroidGrid.found(i);
+                if (asteroids.collides(a, bullets, b)) { // Collision -> destroy both objects.
+                    bullets.destroy(b);
+                    this.destroyAsteroid(asteroids, a, owner);
                 }
             }
 
-            for (Client other : this.clients) {
-                if (!other.equals(client)) {
-                    if (other.getShip().collides(b)) {
-                        b.destroy();
-                        other.getShip().destroy();
-                    }
+            near = this.shipGrid.query(bullets, b);
+            for (int i = 0; i < near; i++) { // Bullets hit every ship, including the one that fired them.
+                Spaceship s = this.ships.get(this.shipGrid.found(i));
+                if (bullets.collides(b, s)) {
+                    bullets.destroy(b);
+                    s.destroy();
                 }
             }
-
-            if (b.collides(this.ship)) { // Collision -> destroy both objects.
-                b.destroy();
-                this.ship.destroy();
-            }
-
-            if (b.collides(client.getShip())) { // Collision with playerß -> destroy both objects
-                b.destroy();
-                client.getShip().destroy();
-            }
         }
+    }
 
-        for (Asteroid a : this.asteroids) { // For all asteroids, no cross check with bullets required.
-            if (a.collides(client.getShip())) { // Collision with player -> destroy both objects.
-                a.destroy();
-                client.getShip().destroy();
+    /**
+     * Destroys a ship and the asteroids it flies into.
+     *
+     * @param asteroids the asteroids of this tick.
+     * @param ship      the ship to check.
+     */
+    private void checkShipCollisions(EntityStore<Asteroid> asteroids, Spaceship ship) {
+        int near = this.asteroidGrid.query(ship);
+        for (int i = 0; i < near; i++) { // For all nearby asteroids, no cross check with bullets required.
+            int a = this.asteroidGrid.found(i);
+            if (asteroids.collides(a, ship)) { // Collision with player -> destroy both objects.
+                this.destroyAsteroid(asteroids, a, ship);
+                ship.destroy();
             }
         }
     }
 
     /**
-     * Increases the score of the player by one and updates asteroid limit
-     * when required.
+     * Destroys an asteroid. The first ship to destroy it gets a point, and
+     * every 5th point of the player increases the asteroid limit.
+     *
+     * @param asteroids the asteroids of this tick.
+     * @param asteroid  the index of the asteroid that is hit.
+     * @param ship      the ship that hit it.
      */
-    private void increaseScore() {
-        this.ship.increaseScore();
-        if (this.ship.getScore() % 5 == 0) this.asteroidsLimit++;
+    private void destroyAsteroid(EntityStore<Asteroid> asteroids, int asteroid, Spaceship ship) {
+        if (asteroids.isDestroyed(asteroid)) return;
+        asteroids.destroy(asteroid);
+        ship.increaseScore();
+        if (ship == this.ship && this.ship.getScore() % 5 == 0) this.asteroidsLimit++;
     }
 
     /**
-     * Removes all destroyed objects. Destroyed asteroids increase the score
-     * and spawn two smaller asteroids if it wasn't a small asteroid. New
-     * asteroids are faster than their predecessor and travel in opposite
+     * Removes all destroyed objects of the player and all clients. Destroyed
+     * asteroids spawn two smaller asteroids if it wasn't a small asteroid.
+     * New asteroids are faster than their predecessor and travel in opposite
      * direction.
-     */
-    private void removeDestroyedObjects() {
-        Collection<Asteroid> newAsts = new ArrayList<>();
-        for (Asteroid a : this.asteroids) {
-            if (a.isDestroyed()) {
-                this.increaseScore();
-                Collection<Asteroid> successors = a.getSuccessors();
-                newAsts.addAll(successors);
-            } else newAsts.add(a);
-        }
-        this.asteroids = newAsts;
-
-        Collection<Bullet> newBuls = new ArrayList<>();
-        for (Bullet b : this.bullets) if (!b.isDestroyed()) newBuls.add(b);
-        this.bullets = newBuls;
-    }
-
-    /**
-     * Similar to the previous function, it removes objects destroyed by clients and increases the score of the clients.
      *
-     * @param client input client
+     * @param asteroids the asteroids of this tick.
+     * @param bullets   the bullets of the player in this tick.
      */
-
-    private void removeDestroyedObjectsClient(Client client) {
-        Collection<Asteroid> newAsts = new ArrayList<>();
-        for (Asteroid a : this.asteroids) {
-            if (a.isDestroyed()) {
-                client.getShip().increaseScore();
-                Collection<Asteroid> successors = a.getSuccessors();
-                newAsts.addAll(successors);
-            } else newAsts.add(a);
-        }
-        this.asteroids = newAsts;
-
-        Collection<Bullet> newBuls = new ArrayList<>();
-        for (Bullet b : client.getBullets()) if (!b.isDestroyed()) newBuls.add(b);
-        client.setBullets(newBuls);
+    private void removeDestroyedObjects(EntityStore<Asteroid> asteroids, EntityStore<Bullet> bullets) {
+        asteroids.removeDestroyed();
+        bullets.removeDestroyed();
+        for (Client c : this.clients) c.getBulletStore().removeDestroyed();
     }
 
     private boolean clientShipsAreDestroyed() {
@@ -525,44 +584,144 @@ public class Game extends Observable implements Runnable, Serializable {
      * milliseconds before reevaluating and continuing the simulation.
      * <p>
      * While the game is not aborted and the player is still alive, it will
-     * measure the time it takes the program to perform a game tick and wait
-     * 40 minus execution time milliseconds to do it all over again. This
-     * allows the game to update every 40th millisecond, thus keeping a steady
-     * 25 frames per second.
+     * perform a game tick every 1/getTickRate() seconds, 25 times per second
+     * by default. The time is measured with System.nanoTime() and the time
+     * that passed is added up, so ticks do not drift. If a tick took too
+     * long, the following ticks are performed right away to catch up, but
+     * at most MAX_CATCH_UP in a row; ticks beyond that are skipped. The
+     * durations of the ticks are kept in the tick statistics.
      * This updates both the current player model and the interactions with the clients.
+     *
+     * @see #getTickStatistics()
      */
 
     public void run() { // Update -> sleep -> update -> sleep -> etc...
-        long executionTime, sleepTime;
+        long previous = System.nanoTime();
+        long lag = 0;
         while (true) {
             if (!this.gameOver() && !this.aborted) {
-                executionTime = System.currentTimeMillis();
-                this.updateClients();
-                this.update();
-                executionTime -= System.currentTimeMillis();
-                sleepTime = Math.max(0, 40 + executionTime);
-            } else sleepTime = 100;
-
-            try {
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                System.err.println("Could not perform action: Thread.sleep(...)");
-                System.err.println("The thread that needed to sleep is the game thread, responsible for the game loop (update -> wait -> update -> etc).");
-                e.printStackTrace();
+                long period = 1_000_000_000L / this.tickRate;
+                long now = System.nanoTime();
+                lag += now - previous;
+                previous = now;
+
+                int ticks = 0;
+                while (lag >= period && ticks < MAX_CATCH_UP) {
+                    long start = System.nanoTime();
+                    this.updateClients();
+                    this.update();
+                    this.tickStatistics.record(System.nanoTime() - start, period);
+                    lag -= period;
+                    ticks++;
+                }
+                if (lag >= period) { // Too far behind -> skip the ticks that are left.
+                    this.tickStatistics.skip(lag / period);
+                    lag %= period;
+                }
+                LockSupport.parkNanos(period - lag);
+            } else {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    System.err.println("Could not perform action: Thread.sleep(...)");
+                    System.err.println("The thread that needed to sleep is the game thread, responsible for the game loop (update -> wait -> update -> etc).");
+                    e.printStackTrace();
+                }
+                previous = System.nanoTime();
+                lag = 0;
             }
         }
     }
 
+    /**
+     * Reads the default tick rate from the asteroids.tickRate system property.
+     * A rate that setTickRate would reject is replaced by 25.
+     *
+     * @return the default tick rate in Hz.
+     */
+    private static int defaultTickRate() {
+        int tickRate = Integer.getInteger("asteroids.tickRate", 25);
+        if (tickRate <= 0 || tickRate > MAX_TICK_RATE) {
+            System.err.println("Invalid asteroids.tickRate " + tickRate + ", using 25 instead.");
+            return 25;
+        }
+        return tickRate;
+    }
+
+    /**
+     * Returns the number of game ticks per second.
+     *
+     * @return the tick rate in Hz.
+     */
+    public int getTickRate() {
+        return this.tickRate;
+    }
+
+    /**
+     * Sets the number of game ticks per second, which is the speed of the
+     * game. Objects move a fixed distance every tick and new asteroids appear
+     * after a fixed number of ticks, so at 60 Hz the game runs 2.4 times as
+     * fast as at the default 25 Hz rather than more smoothly.
+     *
+     * @param tickRate the tick rate in Hz, from 1 up to MAX_TICK_RATE.
+     */
+    public void setTickRate(int tickRate) {
+        if (tickRate <= 0 || tickRate > MAX_TICK_RATE) {
+            throw new IllegalArgumentException("Tick rate must be from 1 up to " + MAX_TICK_RATE);
+        }
+        this.tickRate = tickRate;
+    }
+
+    /**
+     * Returns a copy of the statistics of the ticks performed by run(), such
+     * as the number of ticks that took longer than the tick period.
+     *
+     * @return the tick statistics.
+     */
+    public TickStatistics getTickStatistics() {
+        return this.tickStatistics.copy();
+    }
+
+    /**
+     * Restores a game that was received from the network. The tick
+     * statistics are not sent along, so a deserialized game starts with
+     * statistics without any ticks.
+     *
+     * @param in the stream to read the game from.
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.tickStatistics = new TickStatistics();
+    }
+
     public void setPlayer(Spaceship receivedShip) {
         this.ship = receivedShip;
     }
 
+    /**
+     * Replaces the bullets of the player. The bullets are loaded into a new
+     * store, which replaces the current one as a whole, so a tick that is
+     * running on the game thread keeps the store it started with.
+     *
+     * @param bullets the new bullets.
+     */
     public void setBullets(Collection<Bullet> bullets) {
-        this.bullets = bullets;
+        EntityStore<Bullet> store = EntityStore.forBullets();
+        store.load(bullets);
+        this.bullets = store;
     }
 
+    /**
+     * Replaces the asteroids, in the same way as setBullets(Collection).
+     *
+     * @param asteroids the new asteroids.
+     */
     public void setAsteroids(Collection<Asteroid> asteroids) {
-        this.asteroids = asteroids;
+        EntityStore<Asteroid> store = EntityStore.forAsteroids();
+        store.load(asteroids);
+        this.asteroids = store;
     }
 
     public ArrayList<Client> getClients() {
@@ -64,6 +64,36 @@ public abstract class GameObject implements Serializable {
         this.stepsTilCollide = 3;
     }
 
+    /**
+     * Resets the object to a new location and velocity, so that it can be
+     * reused for a new object. Like a new object, it is not destroyed and
+     * not allowed to collide for the first 3 steps.
+     *
+     * @param locationX location on the X axis.
+     * @param locationY location on the Y axis.
+     * @param velocityX velocity in X direction.
+     * @param velocityY velocity in Y direction.
+     */
+    void reset(double locationX, double locationY, double velocityX, double velocityY) {
+        this.locationX = locationX;
+        this.locationY = locationY;
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+        this.destroyed = false;
+        this.stepsTilCollide = 3;
+    }
+
+    /**
+     * Gives the object back to the pool of its class, after which it must not
+     * be used anymore. Objects of classes without a pool are left to the
+     * garbage collector. Only this package recycles objects, and only objects
+     * it made itself and that nothing else refers to.
+     *
+     * @see ObjectPool
+     */
+    void recycle() {
+    }
+
     /**
      * Subclasses need to specify their own behaviour.
      */
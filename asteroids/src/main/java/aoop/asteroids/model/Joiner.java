@@ -2,6 +2,7 @@ package aoop.asteroids.model;
 
 import java.io.IOException;
 import java.net.*;
+import java.util.Collection;
 
 public class Joiner implements Runnable {
     private DatagramSocket socket;
@@ -139,16 +140,22 @@ public class Joiner implements Runnable {
                 sendEmpty();
 
                 Game receiveServerGame = receiveServerGame();
-                this.game.setAsteroids(receiveServerGame.getAsteroids());
+                Collection<Asteroid> asteroids = receiveServerGame.getAsteroids();
+                this.game.setAsteroids(asteroids);
+                EntityStore.recycle(asteroids);
 
                 int indexOfThisClient = receiveServerGame.getClientIndex();
                 this.game.setPlayer(receiveServerGame.getClients().get(indexOfThisClient).getShip());
-                this.game.setBullets(receiveServerGame.getClients().get(indexOfThisClient).getBullets());
+                Collection<Bullet> bullets = receiveServerGame.getClients().get(indexOfThisClient).getBullets();
+                this.game.setBullets(bullets);
+                EntityStore.recycle(bullets);
                 receiveServerGame.getClients().remove(indexOfThisClient);
 
                 Client hostSpaceShip = new ClientBuilder().setAddress(InetAddress.getByName("localhost")).setPort(8888).createClient();
                 hostSpaceShip.setShip(receiveServerGame.getPlayer());
-                hostSpaceShip.setBullets(receiveServerGame.getBullets());
+                bullets = receiveServerGame.getBullets();
+                hostSpaceShip.setBullets(bullets);
+                EntityStore.recycle(bullets);
 
                 receiveServerGame.getClients().add(hostSpaceShip);
                 this.game.setClients(receiveServerGame.getClients());
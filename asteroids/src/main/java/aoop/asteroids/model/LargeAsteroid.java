@@ -11,6 +11,11 @@ import java.util.Collection;
  */
 public class LargeAsteroid extends Asteroid {
 
+    /**
+     * Pool of large asteroids that are not in use.
+     */
+    static final ObjectPool<LargeAsteroid> POOL = new ObjectPool<>(() -> new LargeAsteroid(new Point(), 0, 0), 1024);
+
     /**
      * Constructs a new large asteroid. I.e. the radius will be 40 pixels.
      *
@@ -37,4 +42,12 @@ public class LargeAsteroid extends Asteroid {
         return asteroidFactory.getAsteroids(this);
     }
 
+    /**
+     * Gives the asteroid back to the pool of large asteroids.
+     */
+    @Override
+    void recycle() {
+        POOL.release(this);
+    }
+
 }
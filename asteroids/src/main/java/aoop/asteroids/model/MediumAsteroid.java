@@ -11,6 +11,11 @@ import java.util.Collection;
  */
 public class MediumAsteroid extends Asteroid {
 
+    /**
+     * Pool of medium asteroids that are not in use.
+     */
+    static final ObjectPool<MediumAsteroid> POOL = new ObjectPool<>(() -> new MediumAsteroid(new Point(), 0, 0), 1024);
+
     /**
      * Constructs a new medium asteroid. I.e. the radius will be 20 pixels.
      *
@@ -37,4 +42,12 @@ public class MediumAsteroid extends Asteroid {
         return asteroidFactory.getAsteroids(this);
     }
 
+    /**
+     * Gives the asteroid back to the pool of medium asteroids.
+     */
+    @Override
+    void recycle() {
+        POOL.release(this);
+    }
+
 }
@@ -0,0 +1,68 @@
+package aoop.asteroids.model;
+
+import java.util.function.Supplier;
+
+/**
+ * A pool of game objects that are recycled instead of left to the garbage
+ * collector. Objects are taken from the pool with obtain() and reset by the
+ * caller, and given back with release() once nothing refers to them anymore.
+ * The pool keeps at most a fixed number of free objects, so a burst of
+ * objects does not stay in memory for good.
+ * <p>
+ * The pools are shared by the game thread, the network threads and the
+ * painting thread, so access to a pool is synchronized.
+ *
+ * @param <T> the type of the pooled objects.
+ */
+class ObjectPool<T extends GameObject> {
+
+    /**
+     * Makes a new object when the pool is empty.
+     */
+    private final Supplier<T> factory;
+
+    /**
+     * The free objects, of which the first size are in use.
+     */
+    private final Object[] free;
+
+    /**
+     * Number of free objects.
+     */
+    private int size;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param factory  makes a new object when the pool is empty.
+     * @param capacity the maximal number of free objects kept.
+     */
+    ObjectPool(Supplier<T> factory, int capacity) {
+        this.factory = factory;
+        this.free = new Object[capacity];
+    }
+
+    /**
+     * Returns a free object, or a new one if there is none. The state of the
+     * object is that of its last use, so it has to be reset.
+     *
+     * @return an object that is not in use.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized T obtain() {
+        if (this.size == 0) return this.factory.get();
+        T object = (T) this.free[--this.size];
+        this.free[this.size] = null;
+        return object;
+    }
+
+    /**
+     * Gives back an object, which must not be used afterwards.
+     *
+     * @param object the object that is not used anymore.
+     */
+    synchronized void release(T object) {
+        if (this.size < this.free.length) this.free[this.size++] = object;
+    }
+
+}
@@ -10,6 +10,11 @@ import java.awt.Point;
  */
 public class SmallAsteroid extends Asteroid {
 
+    /**
+     * Pool of small asteroids that are not in use.
+     */
+    static final ObjectPool<SmallAsteroid> POOL = new ObjectPool<>(() -> new SmallAsteroid(new Point(), 0, 0), 1024);
+
     /**
      * Constructs a new small asteroid. I.e. the radius will be 10 pixels.
      *
@@ -20,4 +25,13 @@ public class SmallAsteroid extends Asteroid {
     public SmallAsteroid(Point location, double velocityX, double velocityY) {
         super(location, velocityX, velocityY, 10);
     }
+
+    /**
+     * Gives the asteroid back to the pool of small asteroids.
+     */
+    @Override
+    void recycle() {
+        POOL.release(this);
+    }
+
 }
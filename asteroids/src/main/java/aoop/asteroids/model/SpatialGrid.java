@@ -0,0 +1,208 @@
+package aoop.asteroids.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid over the 800 by 800 world that is used to find the game
+ * objects that may collide with a given object, without testing all of them.
+ * The world wraps around, so the cells at one edge neighbour the cells at the
+ * opposite edge.
+ * <p>
+ * The grid is rebuilt from a list of game objects or from an entity store
+ * once per tick, and refers to the objects by their index in the list or the
+ * store. The objects are sorted by cell with a counting sort into arrays that
+ * are reused between rebuilds, so a rebuild only allocates when the number of
+ * objects grows.
+ */
+class SpatialGrid {
+
+    /**
+     * Size of the world in pixels along both axes.
+     */
+    static final int WORLD_SIZE = 800;
+
+    /**
+     * Size of a cell in pixels.
+     */
+    private static final int CELL_SIZE = 50;
+
+    /**
+     * Number of cells along both axes.
+     */
+    private static final int CELLS = WORLD_SIZE / CELL_SIZE;
+
+    /**
+     * Number of objects in the grid.
+     */
+    private int count;
+
+    /**
+     * Cell of every object.
+     */
+    private int[] cellOf = new int[16];
+
+    /**
+     * Indices of the objects, sorted by cell.
+     */
+    private int[] sorted = new int[16];
+
+    /**
+     * The objects in cell c are at sorted[cellStart[c]] up to but not
+     * including sorted[cellStart[c + 1]].
+     */
+    private final int[] cellStart = new int[CELLS * CELLS + 1];
+
+    /**
+     * Largest radius of the objects in the grid.
+     */
+    private int maxRadius;
+
+    /**
+     * Indices of the objects found by the last query.
+     */
+    private int[] found = new int[16];
+
+    /**
+     * Number of objects found by the last query.
+     */
+    private int foundCount;
+
+    /**
+     * Returns the cell coordinate of a location along one axis.
+     *
+     * @param location the location in pixels.
+     * @return the cell coordinate, wrapped into the world.
+     */
+    private static int cell(int location) {
+        return Math.floorMod(Math.floorDiv(location, CELL_SIZE), CELLS);
+    }
+
+    /**
+     * Replaces the objects in the grid with a list of game objects.
+     *
+     * @param objects the objects to put in the grid.
+     */
+    void rebuild(List<? extends GameObject> objects) {
+        this.clear(objects.size());
+        for (int i = 0; i < objects.size(); i++) {
+            GameObject object = objects.get(i);
+            this.place(object.locationX, object.locationY, object.getRadius());
+        }
+        this.sort();
+    }
+
+    /**
+     * Replaces the objects in the grid with the entities of a store.
+     *
+     * @param store the entities to put in the grid.
+     */
+    void rebuild(EntityStore<?> store) {
+        this.clear(store.size());
+        for (int i = 0; i < store.size(); i++) {
+            this.place(store.getX(i), store.getY(i), store.getRadius(i));
+        }
+        this.sort();
+    }
+
+    private void clear(int n) {
+        if (n > this.cellOf.length) {
+            int length = Math.max(n, 2 * this.cellOf.length);
+            this.cellOf = new int[length];
+            this.sorted = new int[length];
+        }
+        Arrays.fill(this.cellStart, 0);
+        this.count = 0;
+        this.maxRadius = 0;
+    }
+
+    /**
+     * Puts the next object in its cell.
+     */
+    private void place(double locationX, double locationY, int radius) {
+        int c = cell((int) locationY) * CELLS + cell((int) locationX);
+        this.cellOf[this.count++] = c;
+        this.cellStart[c + 1]++;
+        this.maxRadius = Math.max(this.maxRadius, radius);
+    }
+
+    /**
+     * Sorts the objects that have been placed by cell.
+     */
+    private void sort() {
+        for (int c = 0; c < CELLS * CELLS; c++) {
+            this.cellStart[c + 1] += this.cellStart[c];
+        }
+        for (int i = 0; i < this.count; i++) {
+            this.sorted[this.cellStart[this.cellOf[i]]++] = i;
+        }
+        for (int c = CELLS * CELLS; c > 0; c--) {
+            this.cellStart[c] = this.cellStart[c - 1];
+        }
+        this.cellStart[0] = 0;
+    }
+
+    /**
+     * Finds the objects in the grid that are close enough to an object to
+     * collide with it, together with some objects that are not. The indices
+     * of the objects found can be read with found(int) until the next query.
+     *
+     * @param object the object to find neighbours of.
+     * @return the number of objects found.
+     */
+    int query(GameObject object) {
+        return this.query(object.locationX, object.locationY, object.getRadius());
+    }
+
+    /**
+     * Finds the objects in the grid that are close enough to an entity of a
+     * store to collide with it, like query(GameObject).
+     *
+     * @param store the store of the entity.
+     * @param i     the index of the entity.
+     * @return the number of objects found.
+     */
+    int query(EntityStore<?> store, int i) {
+        return this.query(store.getX(i), store.getY(i), store.getRadius(i));
+    }
+
+    private int query(double locationX, double locationY, int radius) {
+        this.foundCount = 0;
+        if (this.count == 0) {
+            return 0;
+        }
+        // One extra pixel covers the rounding of locations in GameObject.collides.
+        int reach = radius + this.maxRadius + 1;
+        int x = (int) locationX;
+        int y = (int) locationY;
+        int firstX = Math.floorDiv(x - reach, CELL_SIZE);
+        int firstY = Math.floorDiv(y - reach, CELL_SIZE);
+        int columns = Math.min(CELLS, Math.floorDiv(x + reach, CELL_SIZE) - firstX + 1);
+        int rows = Math.min(CELLS, Math.floorDiv(y + reach, CELL_SIZE) - firstY + 1);
+        for (int row = 0; row < rows; row++) {
+            int cellY = Math.floorMod(firstY + row, CELLS);
+            for (int column = 0; column < columns; column++) {
+                int c = cellY * CELLS + Math.floorMod(firstX + column, CELLS);
+                for (int i = this.cellStart[c]; i < this.cellStart[c + 1]; i++) {
+                    if (this.foundCount == this.found.length) {
+                        this.found = Arrays.copyOf(this.found, 2 * this.foundCount);
+                    }
+                    this.found[this.foundCount++] = this.sorted[i];
+                }
+            }
+        }
+        return this.foundCount;
+    }
+
+    /**
+     * Returns the index of an object found by the last query, in the list or
+     * the store the grid was rebuilt from.
+     *
+     * @param index the index of the result, less than the result of the query.
+     * @return the index of the object.
+     */
+    int found(int index) {
+        return this.found[index];
+    }
+
+}
@@ -2,6 +2,7 @@ package aoop.asteroids.model;
 
 import java.io.IOException;
 import java.net.*;
+import java.util.Collection;
 
 /**
  * The spectator connects to a Server thread and spectates the model of the server.
@@ -67,8 +68,12 @@ public class Spectator implements Runnable {
                 Game game = receiveGameModel();
 
                 this.game.setPlayer(game.getPlayer());
-                this.game.setBullets(game.getBullets());
-                this.game.setAsteroids(game.getAsteroids());
+                Collection<Bullet> bullets = game.getBullets();
+                Collection<Asteroid> asteroids = game.getAsteroids();
+                this.game.setBullets(bullets);
+                this.game.setAsteroids(asteroids);
+                EntityStore.recycle(bullets);
+                EntityStore.recycle(asteroids);
                 this.game.setClients(game.getClients());
             }
         } catch (IOException e) {
@@ -0,0 +1,147 @@
+package aoop.asteroids.model;
+
+/**
+ * Statistics of the game ticks of a game loop. A tick overruns when it takes
+ * longer than the tick period, and ticks are skipped when the loop falls
+ * further behind than it is allowed to catch up.
+ * <p>
+ * The game thread records every tick, while other threads read a copy of the
+ * statistics, so access is synchronized.
+ */
+public class TickStatistics {
+
+    /**
+     * Number of ticks performed.
+     */
+    private long ticks;
+
+    /**
+     * Number of ticks that took longer than the tick period.
+     */
+    private long overruns;
+
+    /**
+     * Number of ticks skipped because the loop was too far behind.
+     */
+    private long skipped;
+
+    /**
+     * Duration of the last tick, the longest tick and all ticks together in
+     * nanoseconds.
+     */
+    private long lastNanos, maxNanos, totalNanos;
+
+    /**
+     * Creates statistics without any ticks.
+     */
+    TickStatistics() {
+    }
+
+    /**
+     * Creates a copy of some statistics.
+     *
+     * @param other the statistics to copy.
+     */
+    private TickStatistics(TickStatistics other) {
+        this.ticks = other.ticks;
+        this.overruns = other.overruns;
+        this.skipped = other.skipped;
+        this.lastNanos = other.lastNanos;
+        this.maxNanos = other.maxNanos;
+        this.totalNanos = other.totalNanos;
+    }
+
+    /**
+     * Records a tick.
+     *
+     * @param nanos       the duration of the tick in nanoseconds.
+     * @param periodNanos the tick period in nanoseconds.
+     */
+    synchronized void record(long nanos, long periodNanos) {
+        this.ticks++;
+        if (nanos > periodNanos) this.overruns++;
+        this.lastNanos = nanos;
+        this.maxNanos = Math.max(this.maxNanos, nanos);
+        this.totalNanos += nanos;
+    }
+
+    /**
+     * Records ticks that are skipped.
+     *
+     * @param ticks the number of skipped ticks.
+     */
+    synchronized void skip(long ticks) {
+        this.skipped += ticks;
+    }
+
+    /**
+     * Returns a copy of the statistics, which is not updated afterwards.
+     *
+     * @return a copy of the statistics.
+     */
+    synchronized TickStatistics copy() {
+        return new TickStatistics(this);
+    }
+
+    /**
+     * Returns the number of ticks performed.
+     *
+     * @return the number of ticks.
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Returns the number of ticks that took longer than the tick period.
+     *
+     * @return the number of overrunning ticks.
+     */
+    public long getOverruns() {
+        return this.overruns;
+    }
+
+    /**
+     * Returns the number of ticks that were skipped because the game loop
+     * fell too far behind to catch up.
+     *
+     * @return the number of skipped ticks.
+     */
+    public long getSkipped() {
+        return this.skipped;
+    }
+
+    /**
+     * Returns the duration of the last tick.
+     *
+     * @return the duration in nanoseconds.
+     */
+    public long getLastNanos() {
+        return this.lastNanos;
+    }
+
+    /**
+     * Returns the duration of the longest tick.
+     *
+     * @return the duration in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    /**
+     * Returns the mean duration of the ticks.
+     *
+     * @return the mean duration in nanoseconds, or 0 if there were no ticks.
+     */
+    public double getMeanNanos() {
+        return this.ticks == 0 ? 0 : (double) this.totalNanos / this.ticks;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ticks, %d overruns, %d skipped, mean %.3f ms, max %.3f ms",
+                this.ticks, this.overruns, this.skipped, this.getMeanNanos() / 1e6, this.maxNanos / 1e6);
+    }
+
+}
@@ -3,9 +3,7 @@ package aoop.asteroids.view;
 import aoop.asteroids.model.*;
 
 import java.awt.*;
-import java.awt.geom.Ellipse2D;
 import java.lang.Object;
-import java.util.Collection;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Random;
@@ -56,8 +54,7 @@ public class AsteroidsPanel extends JPanel {
         this.setBackground(Color.black);
 
         this.paintAsteroids(g2);
-        Collection<Bullet> bullets = this.game.getBullets();
-        this.paintBullets(g2, bullets);
+        this.game.forEachBullet(b -> this.paintBullet(g2, b));
         Spaceship s = this.game.getPlayer();
         this.paintClients(g2);
         this.paintSpaceship(g2,s);
@@ -104,15 +101,15 @@ public class AsteroidsPanel extends JPanel {
     }
 
     /**
-     * Draws all bullets in the GUI as a yellow circle.
+     * Draws a bullet in the GUI as a yellow circle.
      *
      * @param g graphics instance to use.
+     * @param b the bullet to draw.
      */
-    private synchronized void paintBullets(Graphics2D g, Collection<Bullet> bullets) {
+    private void paintBullet(Graphics2D g, Bullet b) {
         g.setColor(Color.yellow);
-
-        for (Bullet b : bullets)
-            g.drawOval(b.getLocation().x - 2, b.getLocation().y - 2, 5, 5);
+        Point location = b.getLocation();
+        g.drawOval(location.x - 2, location.y - 2, 5, 5);
     }
 
     /**
@@ -123,11 +120,10 @@ public class AsteroidsPanel extends JPanel {
     private synchronized void paintAsteroids(Graphics2D g) {
         g.setColor(Color.GRAY);
 
-        for (Asteroid a : this.game.getAsteroids()) {
-            Ellipse2D.Double e = new Ellipse2D.Double();
-            e.setFrame(a.getLocation().x - a.getRadius(), a.getLocation().y - a.getRadius(), 2 * a.getRadius(), 2 * a.getRadius());
-            g.fill(e);
-        }
+        this.game.forEachAsteroid(a -> {
+            Point location = a.getLocation();
+            g.fillOval(location.x - a.getRadius(), location.y - a.getRadius(), 2 * a.getRadius(), 2 * a.getRadius());
+        });
     }
 
     /**
@@ -188,8 +184,7 @@ public class AsteroidsPanel extends JPanel {
             for (int i = 0; i < this.game.getClients().size(); i++) {
                 Spaceship s = this.game.getClients().get(i).getShip();
                 paintSpaceship(g, s);
-                Collection<Bullet> clientBullets = this.game.getClients().get(i).getBullets();
-                paintBullets(g, clientBullets);
+                this.game.getClients().get(i).forEachBullet(b -> paintBullet(g, b));
                 g.setColor(Color.WHITE);
                 g.drawString("Score of " + game.getClients().get(i).getShip().getNickName() + " : " + String.valueOf(this.game.getClients().get(i).getShip().getScore()), 20, 20+(i+1)*20);
             }
@@ -0,0 +1,200 @@
+package intSet;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Container that keeps the low values of a sparse chunk in an ascending
+ * array, which costs two bytes per value.
+ *
+ * @invariant cardinality() <= MAX_ARRAY
+ */
+class ArrayContainer extends Container {
+
+	private char[] values;
+	private int size;
+
+	ArrayContainer(char[] values, int size) {
+		this.values = values;
+		this.size = size;
+	}
+
+	/**
+	 * Returns the number of bytes an array container of some cardinality takes.
+	 */
+	static int bytes(int cardinality) {
+		return 2 * cardinality;
+	}
+
+	static ArrayContainer ofSorted(int[] values, int from, int to) {
+		char[] lows = new char[to - from];
+		for (int i=from; i<to; i++) {
+			lows[i - from] = (char) values[i];
+		}
+		return new ArrayContainer(lows, lows.length);
+	}
+
+	static ArrayContainer ofWords(long[] words, int cardinality) {
+		char[] lows = new char[cardinality];
+		int n = 0;
+		for (int i=0; i<words.length; i++) {
+			long word = words[i];
+			while (word != 0) {
+				lows[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		return new ArrayContainer(lows, n);
+	}
+
+	@Override
+	boolean has(char low) {
+		return Arrays.binarySearch(values, 0, size, low) >= 0;
+	}
+
+	@Override
+	Container add(char low) {
+		int index = Arrays.binarySearch(values, 0, size, low);
+		if (index >= 0) {
+			return this;
+		}
+		if (size == MAX_ARRAY) {
+			long[] words = toWords();
+			words[low >>> 6] |= 1L << low;
+			return new BitmapContainer(words, size + 1);
+		}
+		index = -index - 1;
+		if (size == values.length) {
+			values = Arrays.copyOf(values, Math.min(MAX_ARRAY, Math.max(4, 2 * size)));
+		}
+		System.arraycopy(values, index, values, index + 1, size - index);
+		values[index] = low;
+		size++;
+		return this;
+	}
+
+	@Override
+	Container remove(char low) {
+		int index = Arrays.binarySearch(values, 0, size, low);
+		if (index >= 0) {
+			System.arraycopy(values, index + 1, values, index, size - index - 1);
+			size--;
+		}
+		return this;
+	}
+
+	@Override
+	int cardinality() {
+		return size;
+	}
+
+	@Override
+	int rank(char low) {
+		int index = Arrays.binarySearch(values, 0, size, low);
+		return index >= 0 ? index + 1 : -index - 1;
+	}
+
+	@Override
+	char select(int k) {
+		return values[k];
+	}
+
+	/**
+	 * Returns the number of low values of this container that are in another one.
+	 */
+	int countIn(Container other) {
+		int count = 0;
+		for (int i=0; i<size; i++) {
+			if (other.has(values[i])) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	int fill(int high, int[] out, int position) {
+		for (int i=0; i<size; i++) {
+			out[position++] = high | values[i];
+		}
+		return position;
+	}
+
+	@Override
+	void forEach(int high, IntConsumer action) {
+		for (int i=0; i<size; i++) {
+			action.accept(high | values[i]);
+		}
+	}
+
+	@Override
+	void removeFrom(int high, Storage target) {
+		for (int i=0; i<size; i++) {
+			target.remove(high | values[i]);
+		}
+	}
+
+	@Override
+	void setBits(long[] words) {
+		for (int i=0; i<size; i++) {
+			words[values[i] >>> 6] |= 1L << values[i];
+		}
+	}
+
+	@Override
+	Container copy() {
+		return new ArrayContainer(Arrays.copyOf(values, size), size);
+	}
+
+	/**
+	 * Merges two array containers. A union or symmetric difference of more
+	 * than MAX_ARRAY values is turned into a bitmap.
+	 *
+	 * @return the combined container, or null if it would be empty
+	 */
+	static Container combine(ArrayContainer left, ArrayContainer right, SetOperation operation) {
+		boolean keepLeft = operation.keepsLeft();
+		boolean keepRight = operation.keepsRight();
+		boolean keepBoth = operation.keepsBoth();
+		char[] l = left.values;
+		char[] r = right.values;
+		char[] out = new char[operation.maxSize(left.size, right.size)];
+		int i = 0;
+		int j = 0;
+		int n = 0;
+		while (i < left.size && j < right.size) {
+			if (l[i] < r[j]) {
+				if (keepLeft) {
+					out[n++] = l[i];
+				}
+				i++;
+			} else if (l[i] > r[j]) {
+				if (keepRight) {
+					out[n++] = r[j];
+				}
+				j++;
+			} else {
+				if (keepBoth) {
+					out[n++] = l[i];
+				}
+				i++;
+				j++;
+			}
+		}
+		if (keepLeft) {
+			System.arraycopy(l, i, out, n, left.size - i);
+			n += left.size - i;
+		}
+		if (keepRight) {
+			System.arraycopy(r, j, out, n, right.size - j);
+			n += right.size - j;
+		}
+		if (n == 0) {
+			return null;
+		} else if (n > MAX_ARRAY) {
+			return Container.ofWords(new ArrayContainer(out, n).toWords(), n);
+		}
+		return new ArrayContainer(out, n);
+	}
+
+}
@@ -0,0 +1,271 @@
+package intSet;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The binary file format of a set. All numbers are big-endian.
+ *
+ * <pre>
+ *  0  int   MAGIC
+ *  4  byte  VERSION
+ *  5  byte  SPARSE or DENSE
+ *  6  short 0
+ *  8  int   capacity
+ * 12  int   count
+ * 16  int   dense: base,       sparse: BLOCK_SIZE
+ * 20  int   dense: word count, sparse: block count
+ * 24  int   dense: 0,          sparse: number of bytes of the data
+ * 28  int   0
+ * 32        dense:  the words of a bitmap; bit i of word w stands for base + 64 * w + i
+ *           sparse: for every block, its first value and the offset of its
+ *                   data from the end of this index, each as an int; then
+ *                   the data: for every value of a block after the first one,
+ *                   its distance to the value before it as a varint.
+ * </pre>
+ *
+ * A block holds BLOCK_SIZE values, except for the last one. A varint holds
+ * 7 bits per byte, lowest bits first, with the high bit set on every byte
+ * but the last. The index makes it possible to look up a value by decoding
+ * no more than one block.
+ */
+final class BinaryFormat {
+
+	static final int MAGIC = 0x49534554;
+	static final byte VERSION = 1;
+	static final byte SPARSE = 0;
+	static final byte DENSE = 1;
+	static final int HEADER_BYTES = 32;
+	static final int BLOCK_SIZE = 64;
+
+	static final int CAPACITY = 8;
+	static final int COUNT = 12;
+	static final int BASE = 16;
+	static final int BLOCK_SIZE_FIELD = 16;
+	static final int LENGTH = 20;
+	static final int DATA_BYTES = 24;
+
+	private BinaryFormat() {
+	}
+
+	/**
+	 * Writes a set in whichever encoding takes the fewest bytes.
+	 *
+	 * @pre values is strictly ascending
+	 */
+	static void write(int[] values, int capacity, DataOutputStream out) throws IOException {
+		int count = values.length;
+		int base = count == 0 ? 0 : values[0] & ~63;
+		long words = count == 0 ? 0 : ((long) values[count - 1] - base >>> 6) + 1;
+		int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		long dataBytes = 0;
+		for (int i=1; i<count; i++) {
+			if (i % BLOCK_SIZE != 0) {
+				dataBytes += varintBytes(values[i] - values[i - 1]);
+			}
+		}
+		boolean dense = 8 * words < 8L * blocks + dataBytes;
+		if (!dense && dataBytes > Integer.MAX_VALUE) {
+			throw new IOException("Set too large to write");
+		}
+
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeByte(dense ? DENSE : SPARSE);
+		out.writeShort(0);
+		out.writeInt(capacity);
+		out.writeInt(count);
+		out.writeInt(dense ? base : BLOCK_SIZE);
+		out.writeInt(dense ? (int) words : blocks);
+		out.writeInt(dense ? 0 : (int) dataBytes);
+		out.writeInt(0);
+		if (dense) {
+			int next = 0;
+			for (int w=0; w<words; w++) {
+				long word = 0;
+				while (next < count && (values[next] - base) >>> 6 == w) {
+					word |= 1L << (values[next] - base);
+					next++;
+				}
+				out.writeLong(word);
+			}
+		} else {
+			int offset = 0;
+			for (int b=0; b<blocks; b++) {
+				out.writeInt(values[b * BLOCK_SIZE]);
+				out.writeInt(offset);
+				int end = Math.min(count, (b + 1) * BLOCK_SIZE);
+				for (int i=b*BLOCK_SIZE+1; i<end; i++) {
+					offset += varintBytes(values[i] - values[i - 1]);
+				}
+			}
+			for (int i=1; i<count; i++) {
+				if (i % BLOCK_SIZE != 0) {
+					writeVarint(values[i] - values[i - 1], out);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of a varint, reading the value as unsigned.
+	 */
+	private static int varintBytes(int value) {
+		int bytes = 1;
+		while ((value >>>= 7) != 0) {
+			bytes++;
+		}
+		return bytes;
+	}
+
+	private static void writeVarint(int value, DataOutputStream out) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Checks the header of a set and returns its encoding.
+	 *
+	 * @throws IOException if the buffer does not hold a set
+	 */
+	static byte check(ByteBuffer buffer) throws IOException {
+		if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a set file");
+		} else if (buffer.get(4) != VERSION) {
+			throw new IOException("Unsupported set file version " + buffer.get(4));
+		}
+		byte kind = buffer.get(5);
+		long needed = size(buffer);
+		if ((kind != SPARSE && kind != DENSE) || buffer.limit() < needed) {
+			throw new IOException("Corrupt set file");
+		}
+		return kind;
+	}
+
+	/**
+	 * Returns the number of bytes of a set, from the header at the start of a buffer.
+	 */
+	static long size(ByteBuffer buffer) {
+		return HEADER_BYTES + 8L * buffer.getInt(LENGTH) + (buffer.getInt(DATA_BYTES) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Test whether a set in a buffer has a value, decoding at most one block.
+	 */
+	static boolean has(ByteBuffer buffer, int value) {
+		int count = buffer.getInt(COUNT);
+		int length = buffer.getInt(LENGTH);
+		if (buffer.get(5) == DENSE) {
+			long offset = (long) value - buffer.getInt(BASE);
+			if (offset < 0 || offset >= (long) length << 6) {
+				return false;
+			}
+			long word = buffer.getLong(HEADER_BYTES + 8 * (int) (offset >>> 6));
+			return (word & (1L << offset)) != 0;
+		}
+		int low = 0;
+		int high = length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (buffer.getInt(HEADER_BYTES + 8 * middle) <= value) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		if (high < 0) {
+			return false;
+		}
+		Cursor cursor = new Cursor(buffer, high * BLOCK_SIZE, Math.min(count, (high + 1) * BLOCK_SIZE));
+		while (cursor.hasNext()) {
+			int next = cursor.next();
+			if (next >= value) {
+				return next == value;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the values of a set in a buffer one at a time in ascending order.
+	 */
+	static class Cursor {
+
+		private final ByteBuffer buffer;
+		private final boolean dense;
+		private final int base;
+		private final int length;
+		private int index;
+		private final int end;
+
+		/**
+		 * Dense: the index of the next word to read. Sparse: the position of the next varint.
+		 */
+		private int position;
+		private long bits;
+		private int value;
+
+		/**
+		 * Creates a cursor over all values of a set.
+		 */
+		Cursor(ByteBuffer buffer) {
+			this(buffer, 0, buffer.getInt(COUNT));
+		}
+
+		/**
+		 * Creates a cursor over the values with index from up to but excluding
+		 * to. For a sparse set, from has to be the first index of a block.
+		 */
+		private Cursor(ByteBuffer buffer, int from, int to) {
+			this.buffer = buffer;
+			this.dense = buffer.get(5) == DENSE;
+			this.base = buffer.getInt(BASE);
+			this.length = buffer.getInt(LENGTH);
+			this.index = from;
+			this.end = to;
+			if (!dense && from < to) {
+				int block = from / BLOCK_SIZE;
+				position = HEADER_BYTES + 8 * length + buffer.getInt(HEADER_BYTES + 8 * block + 4);
+			}
+		}
+
+		boolean hasNext() {
+			return index < end;
+		}
+
+		/**
+		 * Returns the next value.
+		 *
+		 * @pre hasNext()
+		 */
+		int next() {
+			if (dense) {
+				while (bits == 0) {
+					bits = buffer.getLong(HEADER_BYTES + 8 * position++);
+				}
+				value = base + ((position - 1) << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			} else if (index % BLOCK_SIZE == 0) {
+				value = buffer.getInt(HEADER_BYTES + 8 * (index / BLOCK_SIZE));
+			} else {
+				int delta = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = buffer.get(position++);
+					delta |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+				value += delta;
+			}
+			index++;
+			return value;
+		}
+
+	}
+
+}
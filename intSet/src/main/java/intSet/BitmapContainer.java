@@ -0,0 +1,136 @@
+package intSet;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Container that keeps one bit for every low value of a dense chunk.
+ */
+class BitmapContainer extends Container {
+
+	/**
+	 * Number of bytes taken by the bitmap of a chunk.
+	 */
+	static final int BYTES = 8 * WORDS;
+
+	private long[] words;
+	private int cardinality;
+
+	/**
+	 * @pre words.length == WORDS
+	 * @pre cardinality is the number of bits set in words
+	 */
+	BitmapContainer(long[] words, int cardinality) {
+		this.words = words;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	boolean has(char low) {
+		return (words[low >>> 6] & (1L << low)) != 0;
+	}
+
+	@Override
+	Container add(char low) {
+		long word = words[low >>> 6];
+		long bit = 1L << low;
+		if ((word & bit) == 0) {
+			words[low >>> 6] = word | bit;
+			cardinality++;
+			if (cardinality == 1 << 16) {
+				return RunContainer.full();
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Removes a low value. The bitmap only turns back into an array once it
+	 * holds half of MAX_ARRAY values, so that adding and removing a value
+	 * around MAX_ARRAY does not convert the container every time.
+	 */
+	@Override
+	Container remove(char low) {
+		long word = words[low >>> 6];
+		long bit = 1L << low;
+		if ((word & bit) != 0) {
+			words[low >>> 6] = word & ~bit;
+			cardinality--;
+			if (cardinality <= MAX_ARRAY / 2) {
+				return ArrayContainer.ofWords(words, cardinality);
+			}
+		}
+		return this;
+	}
+
+	@Override
+	int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	int rank(char low) {
+		int index = low >>> 6;
+		return Kernels.bitCount(words, 0, index) + Long.bitCount(words[index] & (-1L >>> (63 - (low & 63))));
+	}
+
+	@Override
+	char select(int k) {
+		int i = 0;
+		while (Long.bitCount(words[i]) <= k) {
+			k -= Long.bitCount(words[i++]);
+		}
+		return (char) ((i << 6) + BitmapStorage.selectBit(words[i], k));
+	}
+
+	@Override
+	int fill(int high, int[] out, int position) {
+		for (int i=0; i<WORDS; i++) {
+			long word = words[i];
+			while (word != 0) {
+				out[position++] = high | (i << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return position;
+	}
+
+	@Override
+	void forEach(int high, IntConsumer action) {
+		for (int i=0; i<WORDS; i++) {
+			long word = words[i];
+			while (word != 0) {
+				action.accept(high | (i << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+
+	@Override
+	void removeFrom(int high, Storage target) {
+		for (int i=0; i<WORDS; i++) {
+			long word = words[i];
+			while (word != 0) {
+				target.remove(high | (i << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+
+	@Override
+	void setBits(long[] words) {
+		for (int i=0; i<WORDS; i++) {
+			words[i] |= this.words[i];
+		}
+	}
+
+	@Override
+	long[] toWords() {
+		return words;
+	}
+
+	@Override
+	Container copy() {
+		return new BitmapContainer(words.clone(), cardinality);
+	}
+
+}
@@ -0,0 +1,586 @@
+package intSet;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Storage that keeps one bit per value of a compact range. Bit i of word w
+ * stands for the value base + 64 * w + i, so membership tests, inserts and
+ * removals are single word operations.
+ *
+ * @invariant base % 64 == 0
+ */
+class BitmapStorage extends Storage {
+
+	/**
+	 * Minimal number of words combined by one parallel part.
+	 */
+	private static final int PARALLEL_MIN_WORDS = 1 << 12;
+
+	/**
+	 * Number of words summarized by one entry of the rank summary.
+	 */
+	private static final int BLOCK_WORDS = 64;
+
+	private int base;
+	private long[] words;
+	private int count;
+
+	/**
+	 * The rank summary: entry b is the number of bits set in the words before
+	 * block b of BLOCK_WORDS words, up to a final entry that equals count.
+	 * It is built on the first rank or select query and dropped, rather than
+	 * kept up to date, when the bitmap changes.
+	 */
+	private int[] ranks;
+
+	/**
+	 * Creates an empty bitmap covering at least the values lowest to highest.
+	 *
+	 * @pre lowest <= highest
+	 */
+	BitmapStorage(int lowest, int highest) {
+		base = lowest & ~63;
+		words = new long[wordCount(base, highest)];
+	}
+
+	/**
+	 * Creates an empty bitmap without words. It is anchored at the first value
+	 * added, so it never spans the range between 0 and that value.
+	 */
+	BitmapStorage() {
+		words = new long[0];
+	}
+
+	private BitmapStorage(int base, long[] words, int count) {
+		this.base = base;
+		this.words = words;
+		this.count = count;
+	}
+
+	/**
+	 * Creates a bitmap holding the first length values of an array.
+	 *
+	 * @pre 0 < length <= values.length
+	 * @pre the first length values are strictly ascending
+	 */
+	static BitmapStorage ofSorted(int[] values, int length) {
+		BitmapStorage bitmap = new BitmapStorage(values[0], values[length - 1]);
+		for (int i=0; i<length; i++) {
+			int offset = values[i] - bitmap.base;
+			bitmap.words[offset >>> 6] |= 1L << offset;
+		}
+		bitmap.count = length;
+		return bitmap;
+	}
+
+	/**
+	 * Returns the number of words needed to cover base up to and including highest.
+	 */
+	private static int wordCount(int base, int highest) {
+		return (int) ((((long) highest - base) >>> 6) + 1);
+	}
+
+	@Override
+	IntSet.Representation representation() {
+		return IntSet.Representation.BITMAP;
+	}
+
+	@Override
+	boolean has(int value) {
+		long offset = (long) value - base;
+		if (offset < 0 || offset >= (long) words.length << 6) {
+			return false;
+		}
+		return (words[(int) (offset >>> 6)] & (1L << offset)) != 0;
+	}
+
+	@Override
+	boolean add(int value) {
+		if (!covers(value)) {
+			cover(value);
+		}
+		int offset = value - base;
+		int index = offset >>> 6;
+		long word = words[index];
+		long bit = 1L << offset;
+		if ((word & bit) != 0) {
+			return false;
+		}
+		words[index] = word | bit;
+		count++;
+		ranks = null;
+		return true;
+	}
+
+	@Override
+	boolean remove(int value) {
+		if (!covers(value)) {
+			return false;
+		}
+		int offset = value - base;
+		int index = offset >>> 6;
+		long word = words[index];
+		long bit = 1L << offset;
+		if ((word & bit) == 0) {
+			return false;
+		}
+		words[index] = word & ~bit;
+		count--;
+		ranks = null;
+		return true;
+	}
+
+	@Override
+	void filter(Storage other, boolean keep) {
+		for (int i=0; i<words.length; i++) {
+			long word = words[i];
+			for (long rest=word; rest!=0; rest&=rest - 1) {
+				long bit = rest & -rest;
+				if (other.has(base + (i << 6) + Long.numberOfTrailingZeros(bit)) != keep) {
+					word &= ~bit;
+					count--;
+				}
+			}
+			words[i] = word;
+		}
+		ranks = null;
+	}
+
+	@Override
+	void removeFrom(Storage target) {
+		for (int i=0; i<words.length; i++) {
+			long word = words[i];
+			while (word != 0) {
+				target.remove(base + (i << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+
+	@Override
+	int size() {
+		return count;
+	}
+
+	@Override
+	int[] toArray() {
+		int[] array = new int[count];
+		int n = 0;
+		for (int i=0; i<words.length; i++) {
+			long word = words[i];
+			while (word != 0) {
+				array[n++] = base + (i << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return array;
+	}
+
+	@Override
+	int[] sortedArray() {
+		return toArray();
+	}
+
+	/**
+	 * Counts the bits up to the word of a value from the nearest summary entry
+	 * on, so a query looks at no more than BLOCK_WORDS words.
+	 */
+	@Override
+	int rank(int value) {
+		long offset = (long) value - base;
+		if (offset < 0) {
+			return 0;
+		} else if (offset >= span()) {
+			return count;
+		}
+		int index = (int) (offset >>> 6);
+		int rank = summary()[index / BLOCK_WORDS] + Kernels.bitCount(words, index - index % BLOCK_WORDS, index);
+		return rank + Long.bitCount(words[index] & (-1L >>> (63 - (offset & 63))));
+	}
+
+	/**
+	 * Finds the block that holds the value by a binary search of the summary,
+	 * and then the word and bit within it.
+	 */
+	@Override
+	int select(int k) {
+		int[] summary = summary();
+		int low = 0;
+		int high = summary.length - 1;
+		while (high - low > 1) {
+			int middle = (low + high) >>> 1;
+			if (summary[middle] <= k) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
+		k -= summary[low];
+		int i = low * BLOCK_WORDS;
+		while (Long.bitCount(words[i]) <= k) {
+			k -= Long.bitCount(words[i++]);
+		}
+		return base + (i << 6) + selectBit(words[i], k);
+	}
+
+	/**
+	 * Returns the position of the set bit of a word that has k set bits below it.
+	 *
+	 * @pre k < Long.bitCount(word)
+	 */
+	static int selectBit(long word, int k) {
+		for (int i=0; i<k; i++) {
+			word &= word - 1;
+		}
+		return Long.numberOfTrailingZeros(word);
+	}
+
+	private int[] summary() {
+		if (ranks == null) {
+			int blocks = (words.length + BLOCK_WORDS - 1) / BLOCK_WORDS;
+			int[] summary = new int[blocks + 1];
+			for (int b=0; b<blocks; b++) {
+				int from = b * BLOCK_WORDS;
+				summary[b + 1] = summary[b] + Kernels.bitCount(words, from, Math.min(from + BLOCK_WORDS, words.length));
+			}
+			ranks = summary;
+		}
+		return ranks;
+	}
+
+	@Override
+	void forEach(IntConsumer action) {
+		for (int i=0; i<words.length; i++) {
+			long word = words[i];
+			while (word != 0) {
+				action.accept(base + (i << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+
+	@Override
+	Spliterator.OfInt spliterator() {
+		return new BitmapSpliterator(words, base, 0, words.length, count);
+	}
+
+	/**
+	 * Spliterator over a range of words of a bitmap, which splits in halves.
+	 */
+	private static class BitmapSpliterator implements Spliterator.OfInt {
+
+		private final long[] words;
+		private final int base;
+		private int next;
+		private final int end;
+
+		/**
+		 * The bits of word next - 1 that have not been passed on yet.
+		 */
+		private long bits;
+
+		/**
+		 * Estimated number of values left. It is exact until the spliterator
+		 * is split; after that, both halves get half of the estimate, since
+		 * the number of words says little about the values in a sparse bitmap.
+		 */
+		private long estimate;
+
+		/**
+		 * Whether estimate is exact, which only holds for the spliterator over
+		 * the whole bitmap until it is split.
+		 */
+		private boolean sized;
+
+		BitmapSpliterator(long[] words, int base, int next, int end, int count) {
+			this(words, base, next, end, count, true);
+		}
+
+		private BitmapSpliterator(long[] words, int base, int next, int end, long estimate, boolean sized) {
+			this.words = words;
+			this.base = base;
+			this.next = next;
+			this.end = end;
+			this.estimate = estimate;
+			this.sized = sized;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			while (bits == 0) {
+				if (next == end) {
+					return false;
+				}
+				bits = words[next++];
+			}
+			int value = base + ((next - 1) << 6) + Long.numberOfTrailingZeros(bits);
+			bits &= bits - 1;
+			if (sized) {
+				estimate--;
+			}
+			action.accept(value);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			long word = bits;
+			int index = next - 1;
+			while (true) {
+				while (word != 0) {
+					action.accept(base + (index << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+				if (next == end) {
+					break;
+				}
+				index = next;
+				word = words[next++];
+			}
+			bits = 0;
+			if (sized) {
+				estimate = 0;
+			}
+		}
+
+		/**
+		 * Splits off the first half of the words that are left, together with
+		 * the bits of the current word that are left.
+		 */
+		@Override
+		public Spliterator.OfInt trySplit() {
+			int middle = (next + end) >>> 1;
+			if (middle == next) {
+				return null;
+			}
+			estimate >>>= 1;
+			sized = false;
+			BitmapSpliterator prefix = new BitmapSpliterator(words, base, next, middle, estimate, false);
+			prefix.bits = bits;
+			next = middle;
+			bits = 0;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return estimate;
+		}
+
+		@Override
+		public int characteristics() {
+			int characteristics = ORDERED | SORTED | DISTINCT | NONNULL;
+			return sized ? characteristics | SIZED : characteristics;
+		}
+
+		@Override
+		public Comparator<? super Integer> getComparator() {
+			return null;
+		}
+
+	}
+
+	/**
+	 * Returns the number of values the bitmap spans.
+	 */
+	long span() {
+		return (long) words.length << 6;
+	}
+
+	/**
+	 * Returns the number of values spanned by the smallest range of whole words
+	 * that covers both bitmaps.
+	 */
+	long hullSpan(BitmapStorage other) {
+		long low = Math.min(base, other.base);
+		long high = Math.max(end(), other.end());
+		return high - low;
+	}
+
+	/**
+	 * Returns the value just after the last one covered by the bitmap.
+	 */
+	private long end() {
+		return (long) base + ((long) words.length << 6);
+	}
+
+	/**
+	 * Combines two bitmaps a word at a time. Both bases are multiples of 64, so
+	 * the words of both bitmaps line up and no bits have to be shifted.
+	 * An intersection only covers the overlap of both bitmaps and a difference
+	 * the range of the left bitmap; the other operations cover both ranges,
+	 * so the words of the left bitmap can be copied before the right ones are
+	 * merged in. Large bitmaps are split into ranges of words that are
+	 * combined in parallel.
+	 */
+	static BitmapStorage combine(BitmapStorage left, BitmapStorage right, SetOperation operation) {
+		long low;
+		long high;
+		if (operation == SetOperation.AND) {
+			low = Math.max(left.base, right.base);
+			high = Math.min(left.end(), right.end());
+		} else if (operation == SetOperation.AND_NOT) {
+			low = left.base;
+			high = left.end();
+		} else {
+			low = Math.min(left.base, right.base);
+			high = Math.max(left.end(), right.end());
+		}
+		if (high <= low) {
+			return new BitmapStorage((int) low, new long[0], 0);
+		}
+		final long[] words = new long[(int) ((high - low) >>> 6)];
+		final long[] l = left.words;
+		final long[] r = right.words;
+		final int leftShift = (int) ((left.base - low) >> 6);
+		final int rightShift = (int) ((right.base - low) >> 6);
+		int grain = Parallel.worthIt((long) words.length << 6)
+				? Math.max(PARALLEL_MIN_WORDS, words.length / Parallel.parts())
+				: words.length;
+		int count = (int) Parallel.sum(0, words.length, Math.max(1, grain),
+				(from, to) -> combineWords(l, leftShift, r, rightShift, operation, words, from, to));
+		return new BitmapStorage((int) low, words, count);
+	}
+
+	/**
+	 * Computes the words from up to but excluding to of a combined bitmap.
+	 * Bit i of word w of left and right stands for the same value as bit i
+	 * of word w + leftShift or w + rightShift of the result.
+	 *
+	 * @return the number of bits set in the computed words
+	 */
+	private static int combineWords(long[] left, int leftShift, long[] right, int rightShift,
+			SetOperation operation, long[] out, int from, int to) {
+		if (operation == SetOperation.AND) {
+			return Kernels.and(left, from - leftShift, right, from - rightShift, out, from, to - from);
+		}
+		int leftFrom = Math.max(from, leftShift);
+		int leftTo = Math.min(to, leftShift + left.length);
+		if (leftFrom < leftTo) {
+			System.arraycopy(left, leftFrom - leftShift, out, leftFrom, leftTo - leftFrom);
+		}
+		int rightFrom = Math.max(from, rightShift);
+		int rightTo = Math.min(to, rightShift + right.length);
+		if (rightFrom >= rightTo) {
+			return Kernels.bitCount(out, from, to);
+		}
+		return Kernels.bitCount(out, from, rightFrom)
+				+ Kernels.combine(operation, out, rightFrom, right, rightFrom - rightShift, out, rightFrom, rightTo - rightFrom)
+				+ Kernels.bitCount(out, rightTo, to);
+	}
+
+	/**
+	 * Returns the number of values in both bitmaps, without combining them.
+	 */
+	int intersectionCount(BitmapStorage other) {
+		long low = Math.max(base, other.base);
+		long high = Math.min(end(), other.end());
+		if (low >= high) {
+			return 0;
+		}
+		return Kernels.andCount(words, (int) ((low - base) >>> 6), other.words, (int) ((low - other.base) >>> 6),
+				(int) ((high - low) >>> 6));
+	}
+
+	/**
+	 * Combines another bitmap into this one, a word at a time and without
+	 * allocating. A union or symmetric difference is only done in place if
+	 * this bitmap covers the other one and the result has at most maxCount
+	 * values; an intersection or difference always is.
+	 *
+	 * @return whether the bitmap was combined
+	 */
+	boolean combineInPlace(BitmapStorage other, SetOperation operation, int maxCount) {
+		boolean spreads = operation == SetOperation.OR || operation == SetOperation.XOR;
+		if (spreads && (other.base < base || other.end() > end())) {
+			return false;
+		}
+		int common = intersectionCount(other);
+		long newCount;
+		if (operation == SetOperation.AND) {
+			newCount = common;
+		} else if (operation == SetOperation.AND_NOT) {
+			newCount = count - common;
+		} else if (operation == SetOperation.OR) {
+			newCount = (long) count + other.count - common;
+		} else {
+			newCount = (long) count + other.count - 2L * common;
+		}
+		if (newCount > maxCount) {
+			return false;
+		}
+
+		long low = Math.max(base, other.base);
+		long high = Math.min(end(), other.end());
+		int from = 0;
+		int to = 0;
+		if (low < high) {
+			from = (int) ((low - base) >>> 6);
+			to = (int) ((high - base) >>> 6);
+		}
+		int shift = (int) (((long) other.base - base) >> 6);
+		if (operation == SetOperation.AND) {
+			Arrays.fill(words, 0, from, 0);
+			Arrays.fill(words, to, words.length, 0);
+		}
+		Kernels.combine(operation, words, from, other.words, from - shift, words, from, to - from);
+		count = (int) newCount;
+		ranks = null;
+		return true;
+	}
+
+	/**
+	 * Test whether the bitmap has a bit for a value.
+	 */
+	boolean covers(int value) {
+		long offset = (long) value - base;
+		return offset >= 0 && offset < (long) words.length << 6;
+	}
+
+	/**
+	 * Returns the number of values the bitmap would span if it had to cover a value.
+	 */
+	long spanWith(int value) {
+		if (count == 0) {
+			return 64;
+		}
+		long low = Math.min(base, (long) value & ~63L);
+		long high = Math.max((long) base + ((long) words.length << 6), (long) value + 1);
+		return high - low;
+	}
+
+	/**
+	 * Grows the bitmap so that it covers a value. The words are grown by at least
+	 * half of their length, so repeated growth at one end costs amortized O(1).
+	 * An empty bitmap is anchored at the value instead.
+	 */
+	private void cover(int value) {
+		if (count == 0) {
+			base = value & ~63;
+			words = new long[Math.max(1, Math.min(words.length, wordCount(base, Integer.MAX_VALUE)))];
+			ranks = null;
+			return;
+		}
+		int slack = Math.max(1, words.length >>> 1);
+		int newBase = base;
+		int newLength;
+		if (value < base) {
+			long lowest = Math.min((long) value & ~63L, (long) base - ((long) slack << 6));
+			newBase = (int) Math.max(lowest, (long) Integer.MIN_VALUE);
+			newLength = words.length + (int) (((long) base - newBase) >>> 6);
+		} else {
+			long needed = ((long) value - base >>> 6) + 1;
+			long grown = Math.max(needed, (long) words.length + slack);
+			newLength = (int) Math.min(grown, wordCount(base, Integer.MAX_VALUE));
+		}
+		long[] grownWords = new long[newLength];
+		System.arraycopy(words, 0, grownWords, (int) (((long) base - newBase) >>> 6), words.length);
+		words = grownWords;
+		base = newBase;
+		ranks = null;
+	}
+
+}
@@ -0,0 +1,152 @@
+package intSet;
+
+/**
+ * Approximate companion of an IntSet that answers whether a value is
+ * definitely not in the set. A filter never misses a value that was added,
+ * but may claim values that were not, at a false positive rate that is
+ * picked when the filter is created. It takes far less memory than the set
+ * and a lookup reads a single block of 512 bits, which fits a cache line.
+ *
+ * Every value sets a fixed number of bits within one block, picked by a hash
+ * of the value. Keeping all bits of a value in one block makes lookups cheap
+ * at the price of a slightly higher false positive rate than a filter that
+ * spreads its bits over the whole array, which the size of the filter makes
+ * up for.
+ *
+ * @invariant getCount() >= 0
+ */
+public final class BloomFilter {
+
+	private static final int BLOCK_WORDS = 8;
+	private static final int BLOCK_BITS = 64 * BLOCK_WORDS;
+
+	/**
+	 * Extra bits per value, on top of those of an unblocked filter, that make
+	 * up for the clustering of bits in blocks.
+	 */
+	private static final double BLOCK_OVERHEAD = 1.1;
+
+	private static final int MAX_HASHES = 16;
+
+	private final long[] words;
+	private final int blocks;
+	private final int hashes;
+	private int count;
+
+	/**
+	 * Creates an empty filter that keeps to a false positive rate once it
+	 * holds expectedCount values.
+	 * 
+	 * @param expectedCount
+	 *            the number of values the filter is sized for
+	 * @param falsePositiveRate
+	 *            the fraction of values not added that the filter may claim
+	 * @pre expectedCount >= 0
+	 * @pre 0 < falsePositiveRate < 1
+	 * @post getCount() == 0
+	 */
+	public BloomFilter(int expectedCount, double falsePositiveRate) {
+		if (expectedCount < 0) {
+			throw new IllegalArgumentException("Negative expected count");
+		} else if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate not between 0 and 1");
+		}
+		double bitsPerValue = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)) * BLOCK_OVERHEAD;
+		long bits = (long) Math.ceil(Math.max(1, expectedCount) * bitsPerValue);
+		blocks = (int) Math.min(Integer.MAX_VALUE / BLOCK_WORDS, (bits + BLOCK_BITS - 1) / BLOCK_BITS);
+		words = new long[blocks * BLOCK_WORDS];
+		hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(-Math.log(falsePositiveRate) / Math.log(2))));
+	}
+
+	/**
+	 * Creates a filter holding the elements of a set in a single pass over it.
+	 * 
+	 * @pre set != null
+	 * @pre 0 < falsePositiveRate < 1
+	 * @post forall int v: set.has(v) implies return.mightHave(v)
+	 */
+	public static BloomFilter of(IntSet set, double falsePositiveRate) {
+		BloomFilter filter = new BloomFilter(set.getCount(), falsePositiveRate);
+		set.forEach(filter::add);
+		return filter;
+	}
+
+	/**
+	 * Spreads the bits of a value over a long, so that nearby values end up
+	 * in unrelated blocks.
+	 */
+	static long mix(long value) {
+		value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+		value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return value ^ (value >>> 33);
+	}
+
+	/**
+	 * Returns the index of the first word of the block of a value hash.
+	 */
+	private int block(long hash) {
+		return (int) (((hash >>> 32) * blocks) >>> 32) * BLOCK_WORDS;
+	}
+
+	/**
+	 * Adds a value to the filter.
+	 * 
+	 * @post mightHave(value)
+	 */
+	public void add(int value) {
+		long hash = mix(value);
+		int block = block(hash);
+		int position = (int) hash;
+		int step = (int) mix(hash) | 1;
+		for (int i=0; i<hashes; i++) {
+			int bit = position >>> 23;
+			words[block + (bit >>> 6)] |= 1L << bit;
+			position += step;
+		}
+		count++;
+	}
+
+	/**
+	 * Test whether a value may have been added. If this returns false, the
+	 * value was definitely not added.
+	 */
+	public boolean mightHave(int value) {
+		long hash = mix(value);
+		int block = block(hash);
+		int position = (int) hash;
+		int step = (int) mix(hash) | 1;
+		for (int i=0; i<hashes; i++) {
+			int bit = position >>> 23;
+			if ((words[block + (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+			position += step;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of values added to the filter, counting values that
+	 * were added more than once every time.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of bits of the filter.
+	 */
+	public long getBits() {
+		return 64L * words.length;
+	}
+
+	/**
+	 * Returns the false positive rate expected from the values added so far,
+	 * as if their bits were spread over the whole filter.
+	 */
+	public double expectedFalsePositiveRate() {
+		double unset = Math.exp(-(double) hashes * count / getBits());
+		return Math.pow(1 - unset, hashes);
+	}
+
+}
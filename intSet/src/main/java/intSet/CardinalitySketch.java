@@ -0,0 +1,184 @@
+package intSet;
+
+/**
+ * Estimate of the number of distinct values in a stream of integers, in a
+ * fixed amount of memory. As long as the stream has few distinct values, they
+ * are kept exactly in an IntSet and the estimate is exact. Once there are more
+ * than the exact threshold, the sketch switches to HyperLogLog: every value is
+ * hashed to one of 2^precision registers, which remembers the longest run of
+ * leading zeros among the hashes it has seen. The relative error of the
+ * estimate is then about 1.04 / sqrt(2^precision).
+ *
+ * Sketches of the same precision can be merged into a sketch of the union of
+ * their streams.
+ *
+ * @invariant estimate() >= 0
+ */
+public final class CardinalitySketch {
+
+	public static final int MIN_PRECISION = 4;
+	public static final int MAX_PRECISION = 18;
+
+	private final int precision;
+	private final int threshold;
+
+	/**
+	 * Values seen so far while there are at most threshold of them, or null
+	 * once the sketch has switched to registers.
+	 */
+	private IntSet exact;
+	private byte[] registers;
+
+	/**
+	 * Creates an empty sketch that keeps values exactly until there are as
+	 * many as its registers take bytes, divided by eight.
+	 * 
+	 * @pre MIN_PRECISION <= precision <= MAX_PRECISION
+	 * @post estimate() == 0
+	 */
+	public CardinalitySketch(int precision) {
+		this(precision, (1 << precision) / 8);
+	}
+
+	/**
+	 * Creates an empty sketch.
+	 * 
+	 * @param precision
+	 *            the base 2 logarithm of the number of registers
+	 * @param threshold
+	 *            the maximal number of values that is kept exactly
+	 * @pre MIN_PRECISION <= precision <= MAX_PRECISION
+	 * @pre threshold >= 0
+	 * @post estimate() == 0
+	 */
+	public CardinalitySketch(int precision, int threshold) {
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("Precision not between " + MIN_PRECISION + " and " + MAX_PRECISION);
+		} else if (threshold < 0) {
+			throw new IllegalArgumentException("Negative threshold");
+		}
+		this.precision = precision;
+		this.threshold = threshold;
+		exact = new IntSet(threshold);
+	}
+
+	/**
+	 * Creates a sketch of the elements of a set.
+	 * 
+	 * @pre set != null
+	 * @pre MIN_PRECISION <= precision <= MAX_PRECISION
+	 * @post set.getCount() <= (1 << precision) / 8 implies estimate() == set.getCount()
+	 */
+	public static CardinalitySketch of(IntSet set, int precision) {
+		CardinalitySketch sketch = new CardinalitySketch(precision);
+		set.forEach(sketch::add);
+		return sketch;
+	}
+
+	/**
+	 * Adds a value to the stream of the sketch.
+	 */
+	public void add(int value) {
+		if (exact != null) {
+			if (exact.has(value)) {
+				return;
+			} else if (exact.getCount() < threshold) {
+				exact.add(value);
+				return;
+			}
+			switchToRegisters();
+		}
+		addHash(BloomFilter.mix(value));
+	}
+
+	private void addHash(long hash) {
+		int index = (int) (hash >>> (64 - precision));
+		int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+		if (rank > registers[index]) {
+			registers[index] = (byte) rank;
+		}
+	}
+
+	private void switchToRegisters() {
+		registers = new byte[1 << precision];
+		IntSet values = exact;
+		exact = null;
+		values.forEach(value -> addHash(BloomFilter.mix(value)));
+	}
+
+	/**
+	 * Adds the stream of another sketch to the stream of this one.
+	 * 
+	 * @pre other != null
+	 * @pre other.getPrecision() == getPrecision()
+	 * @post estimate() estimates the number of distinct values in both streams
+	 */
+	public void merge(CardinalitySketch other) {
+		if (other == null) {
+			throw new NullPointerException("Other sketch is null");
+		} else if (other.precision != precision) {
+			throw new IllegalArgumentException("Sketches have different precisions");
+		} else if (other == this) {
+			return;
+		}
+		if (other.exact != null) {
+			other.exact.forEach(this::add);
+			return;
+		}
+		if (exact != null) {
+			switchToRegisters();
+		}
+		for (int i=0; i<registers.length; i++) {
+			if (other.registers[i] > registers[i]) {
+				registers[i] = other.registers[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns the estimated number of distinct values added to the sketch,
+	 * which is exact while isExact().
+	 */
+	public long estimate() {
+		if (exact != null) {
+			return exact.getCount();
+		}
+		int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+		double estimate = alpha * m * m / sum;
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log((double) m / zeros);
+		}
+		return Math.round(estimate);
+	}
+
+	/**
+	 * Test whether the sketch still keeps its values exactly.
+	 */
+	public boolean isExact() {
+		return exact != null;
+	}
+
+	/**
+	 * Returns the base 2 logarithm of the number of registers.
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Returns the maximal number of values the sketch keeps exactly.
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+}
@@ -0,0 +1,229 @@
+package intSet;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Representation of a finite set of integers from a fixed range that can be
+ * shared between threads without locking. Every value of the range has a bit
+ * in an array of words: has() is a single volatile read, while add() and
+ * remove() flip bits with compare-and-set.
+ *
+ * A value can only be added once a slot has been reserved for it, which
+ * keeps the set from ever holding more than getCapacity() values. The number
+ * of values is kept apart from the reservations in a striped counter, so
+ * reading it never contends with other threads.
+ *
+ * @invariant getCount() >= 0
+ * @invariant getCount() <= getCapacity()
+ */
+public class ConcurrentIntSet {
+
+	private final int capacity;
+	private final int lowest;
+	private final int highest;
+	private final AtomicLongArray words;
+	private final LongAdder count = new LongAdder();
+
+	/**
+	 * Number of values that can still be added, minus the adds in progress.
+	 */
+	private final AtomicInteger free;
+
+	/**
+	 * Creates a new set with 0 elements that can hold values from lowest up
+	 * to and including highest.
+	 * 
+	 * @param capacity
+	 *            the maximal number of elements this set can have
+	 * @param lowest
+	 *            the smallest value this set can have
+	 * @param highest
+	 *            the largest value this set can have
+	 * @pre capacity >= 0
+	 * @pre lowest <= highest
+	 * @post getCount() == 0
+	 * @post getCapacity() == capacity
+	 */
+	public ConcurrentIntSet(int capacity, int lowest, int highest) {
+		if (capacity < 0) {
+			capacity = 0;
+			System.out.println("Error: negative capacity. Setting capacity to 0.");
+		}
+		if (lowest > highest) {
+			throw new IllegalArgumentException("Lowest value is larger than highest value");
+		}
+		this.capacity = capacity;
+		this.lowest = lowest;
+		this.highest = highest;
+		words = new AtomicLongArray((int) (((long) highest - lowest >>> 6) + 1));
+		free = new AtomicInteger(capacity);
+	}
+
+	/**
+	 * Test whether the set is empty.
+	 * 
+	 * @return getCount() == 0
+	 */
+	public boolean isEmpty() {
+		return getCount() == 0;
+	}
+
+	/**
+	 * Test whether a value is in the set
+	 * 
+	 * @return exists int v in getArray() such that v == value
+	 */
+	public boolean has(int value) {
+		if (value < lowest || value > highest) {
+			return false;
+		}
+		int offset = value - lowest;
+		return (words.get(offset >>> 6) & (1L << offset)) != 0;
+	}
+
+	/**
+	 * Adds a value to the set.
+	 * 
+	 * @pre getCount() < getCapacity()
+	 * @pre lowest <= value <= highest
+	 * @post has(value)
+	 */
+	public void add(int value) {
+		if (value < lowest || value > highest) {
+			System.out.println("Value out of range. Cannot add.");
+			return;
+		} else if (has(value)) {
+			return;
+		}
+		int slots;
+		do {
+			slots = free.get();
+			if (slots == 0) {
+				System.out.println("Max capacity reached. Cannot add.");
+				return;
+			}
+		} while (!free.compareAndSet(slots, slots - 1));
+
+		int offset = value - lowest;
+		int index = offset >>> 6;
+		long bit = 1L << offset;
+		long word;
+		do {
+			word = words.get(index);
+			if ((word & bit) != 0) {
+				free.incrementAndGet();
+				return;
+			}
+		} while (!words.compareAndSet(index, word, word | bit));
+		count.increment();
+	}
+
+	/**
+	 * Removes a value from the set.
+	 * 
+	 * @post !has(value)
+	 */
+	public void remove(int value) {
+		if (value < lowest || value > highest) {
+			return;
+		}
+		int offset = value - lowest;
+		int index = offset >>> 6;
+		long bit = 1L << offset;
+		long word;
+		do {
+			word = words.get(index);
+			if ((word & bit) == 0) {
+				return;
+			}
+		} while (!words.compareAndSet(index, word, word & ~bit));
+		count.decrement();
+		free.incrementAndGet();
+	}
+
+	/**
+	 * Passes every element of the set to an action in ascending order. Values
+	 * that are added or removed meanwhile may or may not be passed on.
+	 * 
+	 * @pre action != null
+	 */
+	public void forEach(IntConsumer action) {
+		if (action == null) {
+			throw new NullPointerException("Action is null");
+		}
+		for (int i=0; i<words.length(); i++) {
+			long word = words.get(i);
+			while (word != 0) {
+				action.accept(lowest + (i << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+
+	/**
+	 * Returns the elements of the set as an ascending array. Values that are
+	 * added or removed meanwhile may or may not be in it.
+	 * 
+	 * @post forall int v in return: this@pre.has(v) or has(v)
+	 */
+	public int[] getArray() {
+		int[] array = new int[getCount()];
+		int n = 0;
+		for (int i=0; i<words.length(); i++) {
+			long word = words.get(i);
+			while (word != 0) {
+				if (n == array.length) {
+					array = Arrays.copyOf(array, Math.max(4, 2 * n));
+				}
+				array[n++] = lowest + (i << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return n == array.length ? array : Arrays.copyOf(array, n);
+	}
+
+	/**
+	 * Returns a set with the elements this set has at the moment, on which
+	 * the set operations of IntSet can be used.
+	 * 
+	 * @post return.getCapacity() == getCapacity()
+	 */
+	public IntSet snapshot() {
+		IntSet snapshot = new IntSet(capacity);
+		for (int value : getArray()) {
+			snapshot.add(value);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns the number of elements in the set. While other threads add or
+	 * remove values, the count is only weakly consistent: it may lag behind
+	 * the bits, and a removal can be counted before the add it undoes, so it
+	 * is clamped at 0.
+	 */
+	public int getCount() {
+		return (int) Math.max(0, count.sum());
+	}
+
+	/**
+	 * Returns the maximal number of elements in the set.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns a string representation of the set, in the same format as
+	 * IntSet.toString().
+	 */
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+
+}
@@ -0,0 +1,191 @@
+package intSet;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The values of one chunk of a RoaringStorage: all stored values that share
+ * their high 16 bits. A container only keeps the low 16 bits of its values,
+ * as chars so that they compare unsigned. Depending on how the values are
+ * spread over the chunk, a container is an ArrayContainer, a BitmapContainer
+ * or a RunContainer, and changing a container may return one of another kind.
+ *
+ * @invariant cardinality() > 0 for every container held by a storage
+ */
+abstract class Container {
+
+	/**
+	 * Maximal number of values held by an array container. Beyond this, a
+	 * bitmap of 65536 bits takes less memory than an array of chars.
+	 */
+	static final int MAX_ARRAY = 4096;
+
+	/**
+	 * Number of words in the bitmap of a chunk.
+	 */
+	static final int WORDS = 1024;
+
+	/**
+	 * Test whether a low value is in the container.
+	 */
+	abstract boolean has(char low);
+
+	/**
+	 * Adds a low value.
+	 *
+	 * @return the container that holds the values from now on
+	 * @post return.has(low)
+	 */
+	abstract Container add(char low);
+
+	/**
+	 * Removes a low value.
+	 *
+	 * @return the container that holds the values from now on
+	 * @post !return.has(low)
+	 */
+	abstract Container remove(char low);
+
+	/**
+	 * Returns the number of values in the container.
+	 */
+	abstract int cardinality();
+
+	/**
+	 * Returns the number of low values in the container that are at most low.
+	 */
+	abstract int rank(char low);
+
+	/**
+	 * Returns the low value in the container that has k smaller low values.
+	 *
+	 * @pre 0 <= k < cardinality()
+	 */
+	abstract char select(int k);
+
+	/**
+	 * Writes the values of the container in ascending order to an array.
+	 *
+	 * @param high the high 16 bits shared by all values of the chunk
+	 * @return the position just after the last value written
+	 */
+	abstract int fill(int high, int[] out, int position);
+
+	/**
+	 * Passes the values of the container in ascending order to an action.
+	 *
+	 * @param high the high 16 bits shared by all values of the chunk
+	 */
+	abstract void forEach(int high, IntConsumer action);
+
+	/**
+	 * Removes the values of the container from a storage, like forEach but
+	 * without an action object.
+	 *
+	 * @param high the high 16 bits shared by all values of the chunk
+	 */
+	abstract void removeFrom(int high, Storage target);
+
+	/**
+	 * Sets the bits of all values of the container in a chunk bitmap.
+	 *
+	 * @pre words.length == WORDS
+	 */
+	abstract void setBits(long[] words);
+
+	/**
+	 * Returns a container with the same values that shares nothing with this one.
+	 */
+	abstract Container copy();
+
+	/**
+	 * Returns the bitmap of the container, which may be shared with it.
+	 */
+	long[] toWords() {
+		long[] words = new long[WORDS];
+		setBits(words);
+		return words;
+	}
+
+	/**
+	 * Combines two containers of the same chunk.
+	 *
+	 * @return the combined container, or null if it would be empty
+	 */
+	static Container combine(Container left, Container right, SetOperation operation) {
+		if (left instanceof ArrayContainer && right instanceof ArrayContainer) {
+			return ArrayContainer.combine((ArrayContainer) left, (ArrayContainer) right, operation);
+		}
+		long[] words = new long[WORDS];
+		int cardinality = combineWords(left.toWords(), right.toWords(), operation, words);
+		return cardinality == 0 ? null : ofWords(words, cardinality);
+	}
+
+	/**
+	 * Returns the number of low values in both containers, without combining them.
+	 */
+	static int intersectionCount(Container left, Container right) {
+		if (left instanceof ArrayContainer) {
+			return ((ArrayContainer) left).countIn(right);
+		} else if (right instanceof ArrayContainer) {
+			return ((ArrayContainer) right).countIn(left);
+		}
+		return Kernels.andCount(left.toWords(), 0, right.toWords(), 0, WORDS);
+	}
+
+	/**
+	 * Combines two chunk bitmaps into a third one.
+	 *
+	 * @return the number of bits set in out
+	 */
+	static int combineWords(long[] left, long[] right, SetOperation operation, long[] out) {
+		return Kernels.combine(operation, left, 0, right, 0, out, 0, WORDS);
+	}
+
+	/**
+	 * Creates the smallest container for the values of a chunk bitmap.
+	 *
+	 * @pre cardinality > 0
+	 * @pre cardinality is the number of bits set in words
+	 */
+	static Container ofWords(long[] words, int cardinality) {
+		int runs = 0;
+		long previous = 0;
+		for (long word : words) {
+			runs += Long.bitCount(word & ~(word << 1 | previous >>> 63));
+			previous = word;
+		}
+		if (RunContainer.bytes(runs) < Math.min(ArrayContainer.bytes(cardinality), BitmapContainer.BYTES)) {
+			return RunContainer.ofWords(words, runs, cardinality);
+		} else if (cardinality <= MAX_ARRAY) {
+			return ArrayContainer.ofWords(words, cardinality);
+		}
+		return new BitmapContainer(words, cardinality);
+	}
+
+	/**
+	 * Creates the smallest container for a range of an ascending array of
+	 * values that all belong to the same chunk.
+	 *
+	 * @pre from < to
+	 */
+	static Container ofSorted(int[] values, int from, int to) {
+		int cardinality = to - from;
+		int runs = 1;
+		for (int i=from+1; i<to; i++) {
+			if (values[i] != values[i - 1] + 1) {
+				runs++;
+			}
+		}
+		if (RunContainer.bytes(runs) < Math.min(ArrayContainer.bytes(cardinality), BitmapContainer.BYTES)) {
+			return RunContainer.ofSorted(values, from, to, runs);
+		} else if (cardinality <= MAX_ARRAY) {
+			return ArrayContainer.ofSorted(values, from, to);
+		}
+		long[] words = new long[WORDS];
+		for (int i=from; i<to; i++) {
+			words[(char) values[i] >>> 6] |= 1L << values[i];
+		}
+		return new BitmapContainer(words, cardinality);
+	}
+
+}
@@ -0,0 +1,115 @@
+package intSet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Writes a set as text, in the format of IntSet.toString(), to any
+ * Appendable. The digits of every value are written straight into a single
+ * char buffer, which is passed on whenever it is full, so writing a set
+ * allocates nothing per value. The buffer is sized for the number of values,
+ * up to BUFFER_CHARS, so a small set does not pay for a large buffer.
+ *
+ * The writer is an action for forEach(). As actions cannot throw an
+ * IOException, the first one is kept and rethrown by finish(), and nothing
+ * is written after it.
+ */
+final class DecimalWriter implements IntConsumer {
+
+	/**
+	 * Maximal size of the buffer.
+	 */
+	private static final int BUFFER_CHARS = 8192;
+
+	/**
+	 * Maximal number of chars written for one value: a separator, a sign and
+	 * ten digits.
+	 */
+	private static final int MAX_VALUE_CHARS = 13;
+
+	private final Appendable out;
+	private final char[] buffer;
+
+	/**
+	 * The buffer as a CharSequence, made only for an Appendable that is
+	 * neither a Writer nor a StringBuilder.
+	 */
+	private CharBuffer view;
+	private int position;
+	private boolean first = true;
+	private IOException failure;
+
+	/**
+	 * Starts writing a set of count values to out.
+	 */
+	DecimalWriter(Appendable out, int count) {
+		this.out = out;
+		buffer = new char[(int) Math.min(BUFFER_CHARS, 2 + (long) MAX_VALUE_CHARS * count)];
+		buffer[position++] = '{';
+	}
+
+	@Override
+	public void accept(int value) {
+		if (position + MAX_VALUE_CHARS > buffer.length) {
+			flush();
+		}
+		if (!first) {
+			buffer[position++] = ',';
+			buffer[position++] = ' ';
+		}
+		first = false;
+		long rest = value;
+		if (rest < 0) {
+			buffer[position++] = '-';
+			rest = -rest;
+		}
+		int digits = 1;
+		for (long power=10; power<=rest; power*=10) {
+			digits++;
+		}
+		position += digits;
+		for (int i=position-1; i>=position-digits; i--) {
+			buffer[i] = (char) ('0' + rest % 10);
+			rest /= 10;
+		}
+	}
+
+	/**
+	 * Writes the end of the set and passes on what is left in the buffer.
+	 *
+	 * @throws IOException the first exception thrown by out
+	 */
+	void finish() throws IOException {
+		if (position == buffer.length) {
+			flush();
+		}
+		buffer[position++] = '}';
+		flush();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private void flush() {
+		if (failure == null) {
+			try {
+				if (out instanceof Writer) {
+					((Writer) out).write(buffer, 0, position);
+				} else if (out instanceof StringBuilder) {
+					((StringBuilder) out).append(buffer, 0, position);
+				} else {
+					if (view == null) {
+						view = CharBuffer.wrap(buffer);
+					}
+					out.append(view, 0, position);
+				}
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		position = 0;
+	}
+
+}
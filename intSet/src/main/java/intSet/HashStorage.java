@@ -0,0 +1,293 @@
+package intSet;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Storage that keeps the values in an open addressing hash table of ints.
+ * Collisions are resolved by linear probing and removals shift the following
+ * values back, so the table never needs tombstones. Free slots hold the value
+ * EMPTY; whether EMPTY itself is stored is kept in a separate flag.
+ *
+ * @invariant table.length is a power of two
+ * @invariant size() <= MAX_LOAD * table.length, apart from the flag for EMPTY
+ */
+class HashStorage extends Storage {
+
+	/**
+	 * Value marking a free slot.
+	 */
+	static final int EMPTY = 0;
+
+	/**
+	 * Maximal fraction of the slots in use before the table is doubled.
+	 */
+	static final float MAX_LOAD = 0.5f;
+
+	/**
+	 * Table size of a new storage when the capacity does not ask for less.
+	 */
+	private static final int INITIAL_SLOTS = 16;
+
+	private int[] table;
+	private int shift;
+	private int used;
+	private boolean hasEmpty;
+	private int maxSlots;
+
+	/**
+	 * Creates an empty hash table. The table never grows beyond what is needed
+	 * to hold capacity values.
+	 *
+	 * @pre capacity >= 0
+	 */
+	HashStorage(int capacity) {
+		maxSlots = slotsFor(capacity);
+		resize(Math.min(INITIAL_SLOTS, maxSlots));
+	}
+
+	/**
+	 * Returns the smallest table size that holds a number of values.
+	 */
+	private static int slotsFor(int values) {
+		long slots = Math.max(2, (long) Math.ceil(values / MAX_LOAD));
+		return (int) Math.min(1L << 30, Long.highestOneBit(slots - 1) << 1);
+	}
+
+	/**
+	 * Returns the slot to start probing at for a value.
+	 */
+	private int slot(int value) {
+		return (value * 0x9E3779B9) >>> shift;
+	}
+
+	@Override
+	IntSet.Representation representation() {
+		return IntSet.Representation.HASH;
+	}
+
+	@Override
+	boolean has(int value) {
+		if (value == EMPTY) {
+			return hasEmpty;
+		}
+		int mask = table.length - 1;
+		for (int i=slot(value); ; i=(i + 1) & mask) {
+			int stored = table[i];
+			if (stored == value) {
+				return true;
+			} else if (stored == EMPTY) {
+				return false;
+			}
+		}
+	}
+
+	@Override
+	boolean add(int value) {
+		if (value == EMPTY) {
+			boolean added = !hasEmpty;
+			hasEmpty = true;
+			changed();
+			return added;
+		}
+		int mask = table.length - 1;
+		int i = slot(value);
+		while (table[i] != EMPTY) {
+			if (table[i] == value) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		table[i] = value;
+		used++;
+		changed();
+		if (used > MAX_LOAD * table.length && table.length < maxSlots) {
+			resize(table.length * 2);
+		}
+		return true;
+	}
+
+	@Override
+	boolean remove(int value) {
+		if (value == EMPTY) {
+			boolean removed = hasEmpty;
+			hasEmpty = false;
+			changed();
+			return removed;
+		}
+		int mask = table.length - 1;
+		int i = slot(value);
+		while (table[i] != value) {
+			if (table[i] == EMPTY) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		// Shift back every following value of the probe sequence that would
+		// otherwise no longer be found from its own slot.
+		int gap = i;
+		for (int j=(i + 1) & mask; table[j] != EMPTY; j=(j + 1) & mask) {
+			int home = slot(table[j]);
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				table[gap] = table[j];
+				gap = j;
+			}
+		}
+		table[gap] = EMPTY;
+		used--;
+		changed();
+		return true;
+	}
+
+	@Override
+	int size() {
+		return hasEmpty ? used + 1 : used;
+	}
+
+	@Override
+	int[] toArray() {
+		int[] array = new int[size()];
+		int n = 0;
+		if (hasEmpty) {
+			array[n++] = EMPTY;
+		}
+		for (int stored : table) {
+			if (stored != EMPTY) {
+				array[n++] = stored;
+			}
+		}
+		return array;
+	}
+
+	@Override
+	void forEach(IntConsumer action) {
+		if (hasEmpty) {
+			action.accept(EMPTY);
+		}
+		for (int stored : table) {
+			if (stored != EMPTY) {
+				action.accept(stored);
+			}
+		}
+	}
+
+	@Override
+	void removeFrom(Storage target) {
+		if (hasEmpty) {
+			target.remove(EMPTY);
+		}
+		for (int stored : table) {
+			if (stored != EMPTY) {
+				target.remove(stored);
+			}
+		}
+	}
+
+	@Override
+	Spliterator.OfInt spliterator() {
+		return new HashSpliterator(table, 0, table.length, hasEmpty, size());
+	}
+
+	/**
+	 * Spliterator over a range of slots of the table, which splits in halves.
+	 * EMPTY, if stored, comes before the values of the first range.
+	 */
+	private static class HashSpliterator implements Spliterator.OfInt {
+
+		private final int[] table;
+		private int slot;
+		private final int end;
+		private boolean emitEmpty;
+
+		/**
+		 * The exact number of values left, or -1 once the spliterator has been split.
+		 */
+		private int exact;
+
+		HashSpliterator(int[] table, int slot, int end, boolean emitEmpty, int exact) {
+			this.table = table;
+			this.slot = slot;
+			this.end = end;
+			this.emitEmpty = emitEmpty;
+			this.exact = exact;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (emitEmpty) {
+				emitEmpty = false;
+				advanced();
+				action.accept(EMPTY);
+				return true;
+			}
+			while (slot < end) {
+				int stored = table[slot++];
+				if (stored != EMPTY) {
+					advanced();
+					action.accept(stored);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void advanced() {
+			if (exact > 0) {
+				exact--;
+			}
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			if (emitEmpty) {
+				emitEmpty = false;
+				action.accept(EMPTY);
+			}
+			for (; slot<end; slot++) {
+				if (table[slot] != EMPTY) {
+					action.accept(table[slot]);
+				}
+			}
+			exact = exact < 0 ? -1 : 0;
+		}
+
+		@Override
+		public Spliterator.OfInt trySplit() {
+			int middle = (slot + end) >>> 1;
+			if (end - slot < 2) {
+				return null;
+			}
+			Spliterator.OfInt prefix = new HashSpliterator(table, slot, middle, emitEmpty, -1);
+			slot = middle;
+			emitEmpty = false;
+			exact = -1;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return exact >= 0 ? exact : (long) ((end - slot) * MAX_LOAD / 2) + (emitEmpty ? 1 : 0);
+		}
+
+		@Override
+		public int characteristics() {
+			return exact >= 0 ? DISTINCT | NONNULL | SIZED : DISTINCT | NONNULL;
+		}
+
+	}
+
+	private void resize(int slots) {
+		int[] old = table;
+		table = new int[slots];
+		shift = 32 - Integer.numberOfTrailingZeros(slots);
+		used = 0;
+		if (old != null) {
+			for (int stored : old) {
+				if (stored != EMPTY) {
+					add(stored);
+				}
+			}
+		}
+	}
+
+}
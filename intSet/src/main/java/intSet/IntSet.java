@@ -1,15 +1,114 @@
-import java.util.ArrayList;
+package intSet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Representation of a finite set of integers.
  * 
+ * Small sets keep their values in a list. Once a set holds DENSE_MIN_COUNT
+ * values, it picks the storage that suits their count, span and runs:
+ * <ul>
+ * <li>a bitmap if their range is compact enough, which makes has, add and
+ * remove single word operations;</li>
+ * <li>chunks of 65536 values, kept as arrays, bitmaps or lists of runs, if the
+ * values are clustered or form long runs;</li>
+ * <li>an ascending array if they are spread thinly, which turns into a hash
+ * table once the set keeps changing.</li>
+ * </ul>
+ * The set picks again whenever its count has doubled or halved since the
+ * last time, so that a set that grows dense or thins out again switches
+ * along. A set can also be created with a fixed Representation, in which
+ * case it never switches.
+ * 
  * @invariant getCount() >= 0
  * @invariant getCount() <= getCapacity()
  */
 public class IntSet {
 
+	/**
+	 * The ways in which a set can store its values.
+	 */
+	public enum Representation {
+		/** A list of values in insertion order. */
+		LIST,
+		/** A bitmap with one bit per value of a compact range. */
+		BITMAP,
+		/** Chunks of 65536 values, each an array, a bitmap or a list of runs. */
+		ROARING,
+		/** An open addressing hash table, for sparse and randomly spread values. */
+		HASH,
+		/** An ascending array, for sets that are read far more often than changed. */
+		SORTED
+	}
+
+	/**
+	 * Minimal number of values before a set is stored as a bitmap or in chunks.
+	 */
+	static final int DENSE_MIN_COUNT = 64;
+
+	/**
+	 * Maximal number of bitmap bits spent per value. A boxed value in a list
+	 * costs about 20 bytes, so 64 bits per value is still less than half of that.
+	 */
+	static final int DENSE_BITS_PER_VALUE = 64;
+
+	/**
+	 * Minimal average number of values per chunk of 65536 before a set that is
+	 * too sparse for a bitmap is kept in chunks rather than in an ascending array.
+	 */
+	static final int CLUSTER_MIN_VALUES = 16;
+
+	/**
+	 * Factor by which chunks of runs have to be smaller than a bitmap before
+	 * a compact range is kept in chunks. A bitmap is faster to change, so it
+	 * is kept unless the runs save a lot of memory.
+	 */
+	static final int RUN_SAVINGS = 8;
+
+	/**
+	 * Number of adds and removes an ascending array takes before it turns into
+	 * a hash table. Every change shifts half of the array on average, so after
+	 * a few changes building a hash table is cheaper than going on shifting.
+	 */
+	static final int SORTED_MAX_CHANGES = 16;
+
 	private int capacity;
-	private ArrayList<Integer> set;
+	private Storage set;
+
+	/**
+	 * The representation this set always uses, or null if it switches by itself.
+	 */
+	private Representation fixed;
+
+	/**
+	 * The number of elements when the storage was last picked, and the number
+	 * of adds and removes since then.
+	 */
+	private int chosenAt;
+	private int changes;
+
+	/**
+	 * Whether rank or select has been asked, after which a set that switches
+	 * by itself keeps its values in order.
+	 */
+	private boolean ranked;
 
 	/**
 	 * We added 2 new methods: "difference" which returns the difference between 2 sets.
@@ -26,14 +125,52 @@ public class IntSet {
 	 * @post getCapacity() == capacity
 	 */
 	public IntSet(int capacity) {
-		try {
-			this.capacity = capacity;
-			set = new ArrayList<Integer>(capacity);
-		} catch(IllegalArgumentException e) {
-			this.capacity = 0;
-			set = new ArrayList<Integer>(capacity);
+		if (capacity < 0) {
+			capacity = 0;
 			System.out.println("Error: negative capacity. Setting capacity to 0.");
 		}
+		this.capacity = capacity;
+		set = new ListStorage(Math.min(capacity, DENSE_MIN_COUNT));
+	}
+
+	/**
+	 * Creates a new set with 0 elements that always stores its values in the
+	 * same way. Results of set operations on it use the same representation.
+	 * 
+	 * @param capacity
+	 *            the maximal number of elements this set can have
+	 * @param representation
+	 *            the way in which the set stores its values
+	 * @pre capacity >= 0
+	 * @pre representation != null
+	 * @post getCount() == 0
+	 * @post getCapacity() == capacity
+	 */
+	public IntSet(int capacity, Representation representation) {
+		this(capacity);
+		if (representation == null) {
+			throw new NullPointerException("Representation is null");
+		}
+		fixed = representation;
+		set = emptyStorage(representation, this.capacity);
+	}
+
+	/**
+	 * Creates an empty storage of a given representation.
+	 */
+	private static Storage emptyStorage(Representation representation, int capacity) {
+		switch (representation) {
+		case BITMAP:
+			return new BitmapStorage();
+		case ROARING:
+			return new RoaringStorage();
+		case HASH:
+			return new HashStorage(capacity);
+		case SORTED:
+			return new SortedArrayStorage(Math.min(capacity, DENSE_MIN_COUNT));
+		default:
+			return new ListStorage(Math.min(capacity, DENSE_MIN_COUNT));
+		}
 	}
 
 	/**
@@ -42,7 +179,7 @@ public class IntSet {
 	 * @return getCount() == 0
 	 */
 	public boolean isEmpty() {
-		return set.isEmpty();
+		return set.size() == 0;
 	}
 
 	/**
@@ -51,7 +188,115 @@ public class IntSet {
 	 * @return exists int v in getArray() such that v == value
 	 */
 	public boolean has(int value) {
-		return set.contains(value);
+		return set.has(value);
+	}
+
+	/**
+	 * Returns the number of elements that are at most a value. Like
+	 * select(int), this keeps a set that switches by itself in order.
+	 * 
+	 * @post return == #{int v in getArray() | v <= value}
+	 */
+	public int rank(int value) {
+		return ordered().rank(value);
+	}
+
+	/**
+	 * Returns the element that has k smaller elements. A set that switches by
+	 * itself turns a hash table into an ascending array on its first query,
+	 * and no longer turns into a hash table afterwards, so queries stay
+	 * sub-linear while the set changes. A set with a fixed HASH or LIST
+	 * representation sorts a copy of its elements on the first query after
+	 * every change instead.
+	 * 
+	 * @pre 0 <= k < getCount()
+	 * @post has(return)
+	 * @post rank(return) == k + 1
+	 */
+	public int select(int k) {
+		if (k < 0 || k >= set.size()) {
+			throw new IndexOutOfBoundsException("No element " + k + " in a set of " + set.size());
+		}
+		return ordered().select(k);
+	}
+
+	/**
+	 * Returns the storage to answer a rank or select query with, after moving
+	 * a set that switches by itself from a hash table to an ascending array.
+	 */
+	private Storage ordered() {
+		if (fixed == null) {
+			ranked = true;
+			if (set instanceof HashStorage) {
+				set = convert(set, Representation.SORTED, capacity);
+				chosenAt = set.size();
+				changes = 0;
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * Returns the smallest element.
+	 * 
+	 * @pre !isEmpty()
+	 * @post forall int v in getArray(): return <= v
+	 */
+	public int min() {
+		if (isEmpty()) {
+			throw new NoSuchElementException("Set is empty");
+		}
+		return ordered().select(0);
+	}
+
+	/**
+	 * Returns the largest element.
+	 * 
+	 * @pre !isEmpty()
+	 * @post forall int v in getArray(): return >= v
+	 */
+	public int max() {
+		if (isEmpty()) {
+			throw new NoSuchElementException("Set is empty");
+		}
+		return ordered().select(set.size() - 1);
+	}
+
+	/**
+	 * Returns the number of elements from low up to and including high.
+	 * 
+	 * @post return == #{int v in getArray() | low <= v <= high}
+	 */
+	public int countInRange(int low, int high) {
+		if (low > high) {
+			return 0;
+		}
+		Storage ordered = ordered();
+		return ordered.rank(high) - (low == Integer.MIN_VALUE ? 0 : ordered.rank(low - 1));
+	}
+
+	/**
+	 * Returns the smallest element that is at least a value, if there is one.
+	 * 
+	 * @post return.isPresent() implies (has(return.getAsInt()) and return.getAsInt() >= value)
+	 * @post return.isPresent() implies countInRange(value, return.getAsInt() - 1) == 0
+	 */
+	public OptionalInt nextSetValue(int value) {
+		Storage ordered = ordered();
+		int k = value == Integer.MIN_VALUE ? 0 : ordered.rank(value - 1);
+		return k < ordered.size() ? OptionalInt.of(ordered.select(k)) : OptionalInt.empty();
+	}
+
+	/**
+	 * Returns the largest element that is at most a value, if there is one.
+	 * 
+	 * @post return.isPresent() implies (has(return.getAsInt()) and return.getAsInt() <= value)
+	 * @post return.isPresent() implies countInRange(return.getAsInt() + 1, value) == 0
+	 */
+	public OptionalInt previousSetValue(int value) {
+		Storage ordered = ordered();
+		int k = ordered.rank(value);
+		return k > 0 ? OptionalInt.of(ordered.select(k - 1)) : OptionalInt.empty();
 	}
 
 	/**
@@ -65,11 +310,108 @@ public class IntSet {
 	public void add(int value) {
 		if (set.size() == capacity) {
 			System.out.println("Max capacity reached. Cannot add.");
-		} else if (!set.contains(value)) {
+		} else if (fixed != null) {
 			set.add(value);
+		} else {
+			prepareFor(value);
+			if (set.add(value)) {
+				adapt();
+			}
+		}
+	}
+
+	/**
+	 * Splits a bitmap into chunks before it would have to grow too sparse to
+	 * hold a far away value.
+	 */
+	private void prepareFor(int value) {
+		if (set instanceof BitmapStorage) {
+			BitmapStorage bitmap = (BitmapStorage) set;
+			long allowed = (long) DENSE_BITS_PER_VALUE * (set.size() + 1);
+			if (!bitmap.covers(value) && bitmap.spanWith(value) > allowed) {
+				int[] values = set.sortedArray();
+				set = RoaringStorage.ofSorted(values, values.length);
+			}
 		}
 	}
 
+	/**
+	 * Picks the storage again after a value was added or removed, if the
+	 * count crossed a threshold. A list is replaced once it holds
+	 * DENSE_MIN_COUNT values, an ascending array once it has taken
+	 * SORTED_MAX_CHANGES changes, unless rank or select is in use, and any
+	 * other storage once its count has doubled or halved since it was picked. Picking costs time linear in the
+	 * count, so spread over the changes before it, it costs O(1) per change.
+	 */
+	private void adapt() {
+		changes++;
+		int count = set.size();
+		if (set instanceof SortedArrayStorage && changes > SORTED_MAX_CHANGES && !ranked) {
+			set = convert(set, Representation.HASH, capacity);
+		} else if (set instanceof ListStorage ? count >= DENSE_MIN_COUNT
+				: count >= 2L * chosenAt || count <= chosenAt / 2) {
+			int[] values = set.sortedArray();
+			Representation representation = choose(values, values.length);
+			// A hash table is not turned back into an ascending array, as the
+			// set has kept changing ever since it became one.
+			boolean keepsHash = representation == Representation.SORTED && set instanceof HashStorage;
+			if (representation != set.representation() && !keepsHash) {
+				set = fromSorted(values, values.length);
+			}
+		} else {
+			return;
+		}
+		chosenAt = count;
+		changes = 0;
+	}
+
+	/**
+	 * Picks the storage again after values were removed or combined in place,
+	 * if that changed the count. A change of many values in one pass counts
+	 * as a single change, as it costs a single pass.
+	 */
+	private void adaptAfter(int before) {
+		if (fixed == null && set.size() != before) {
+			adapt();
+		}
+	}
+
+	/**
+	 * Returns the storage that suits the first length values of an ascending
+	 * array best.
+	 */
+	private static Representation choose(int[] values, int length) {
+		if (length < DENSE_MIN_COUNT) {
+			return Representation.LIST;
+		}
+		long span = (long) values[length - 1] - values[0] + 1;
+		int runs = 1;
+		int chunks = 1;
+		for (int i=1; i<length; i++) {
+			if (values[i] != values[i - 1] + 1) {
+				runs++;
+			}
+			if (values[i] >>> 16 != values[i - 1] >>> 16) {
+				chunks++;
+			}
+		}
+		if (span <= (long) DENSE_BITS_PER_VALUE * length) {
+			// Every chunk costs about 32 bytes for its key and container on top of its runs.
+			long runBytes = (long) RunContainer.bytes(runs) + 32L * chunks;
+			return runBytes * RUN_SAVINGS < span / 8 ? Representation.ROARING : Representation.BITMAP;
+		}
+		return length >= (long) CLUSTER_MIN_VALUES * chunks ? Representation.ROARING : Representation.SORTED;
+	}
+
+	/**
+	 * Returns the way in which the set stores its values at the moment. Sets
+	 * created without a representation may return another one after every
+	 * change.
+	 */
+	public Representation representation() {
+		return set.representation();
+	}
+
 	/**
 	 * Removes a value from the set.
 	 * 
@@ -78,7 +420,254 @@ public class IntSet {
 	 * @post !this@pre.has(value) implies (getCount() == this@pre.getCount())
 	 */
 	public void remove(int value) {
-		set.remove((Integer) value);
+		if (set.remove(value) && fixed == null) {
+			adapt();
+		}
+	}
+
+	/**
+	 * Adds all values of an array to the set. The values are sorted once and
+	 * merged with the elements in a single pass, rather than added one by one.
+	 * If not all new values fit, the smallest ones are added.
+	 * 
+	 * @pre values != null
+	 * @post forall int v in values: has(v) or return > 0
+	 * @post getCount() == min(getCapacity(), #(this@pre.getArray() union values))
+	 * @return the number of new values that were not added for lack of capacity
+	 */
+	public int addAll(int[] values) {
+		if (values==null) {
+			throw new NullPointerException("Values are null");
+		}
+		int[] sorted = values.clone();
+		return addSorted(sorted, distinct(sorted));
+	}
+
+	/**
+	 * Adds all values of a stream to the set, as addAll(int[]) does.
+	 * 
+	 * @pre values != null
+	 * @return the number of new values that were not added for lack of capacity
+	 */
+	public int addAll(IntStream values) {
+		if (values==null) {
+			throw new NullPointerException("Values are null");
+		}
+		int[] sorted = values.toArray();
+		return addSorted(sorted, distinct(sorted));
+	}
+
+	/**
+	 * Adds all elements of another set to the set. If not all new values fit,
+	 * the smallest ones are added.
+	 * 
+	 * @pre other != null
+	 * @post getCount() == min(getCapacity(), #(this@pre.getArray() union other.getArray()))
+	 * @return the number of new values that were not added for lack of capacity
+	 */
+	public int addAll(IntSet other) {
+		if (other==null) {
+			throw new NullPointerException("Other set is null");
+		}
+		if ((long) set.size() + other.set.size() <= capacity) {
+			replace(combine(other, SetOperation.OR).set);
+			return 0;
+		}
+		return addSorted(other.sortedValues(), other.set.size());
+	}
+
+	/**
+	 * Removes all values of an array from the set.
+	 * 
+	 * @pre values != null
+	 * @post forall int v in values: !has(v)
+	 * @return the number of elements that were removed
+	 */
+	public int removeAll(int[] values) {
+		if (values==null) {
+			throw new NullPointerException("Values are null");
+		}
+		int[] sorted = values.clone();
+		return keepSorted(sorted, distinct(sorted), SetOperation.AND_NOT);
+	}
+
+	/**
+	 * Removes all values of a stream from the set.
+	 * 
+	 * @pre values != null
+	 * @return the number of elements that were removed
+	 */
+	public int removeAll(IntStream values) {
+		if (values==null) {
+			throw new NullPointerException("Values are null");
+		}
+		int[] sorted = values.toArray();
+		return keepSorted(sorted, distinct(sorted), SetOperation.AND_NOT);
+	}
+
+	/**
+	 * Removes all elements of another set from the set.
+	 * 
+	 * @pre other != null
+	 * @post forall int v: other.has(v) implies !has(v)
+	 * @return the number of elements that were removed
+	 */
+	public int removeAll(IntSet other) {
+		if (other==null) {
+			throw new NullPointerException("Other set is null");
+		}
+		int before = set.size();
+		replace(combine(other, SetOperation.AND_NOT).set);
+		return before - set.size();
+	}
+
+	/**
+	 * Removes all elements that are not in an array from the set.
+	 * 
+	 * @pre values != null
+	 * @post forall int v: has(v) implies v in values
+	 * @return the number of elements that were removed
+	 */
+	public int retainAll(int[] values) {
+		if (values==null) {
+			throw new NullPointerException("Values are null");
+		}
+		int[] sorted = values.clone();
+		return keepSorted(sorted, distinct(sorted), SetOperation.AND);
+	}
+
+	/**
+	 * Removes all elements that are not in a stream from the set.
+	 * 
+	 * @pre values != null
+	 * @return the number of elements that were removed
+	 */
+	public int retainAll(IntStream values) {
+		if (values==null) {
+			throw new NullPointerException("Values are null");
+		}
+		int[] sorted = values.toArray();
+		return keepSorted(sorted, distinct(sorted), SetOperation.AND);
+	}
+
+	/**
+	 * Removes all elements that are not in another set from the set.
+	 * 
+	 * @pre other != null
+	 * @post forall int v: has(v) implies other.has(v)
+	 * @return the number of elements that were removed
+	 */
+	public int retainAll(IntSet other) {
+		if (other==null) {
+			throw new NullPointerException("Other set is null");
+		}
+		int before = set.size();
+		replace(combine(other, SetOperation.AND).set);
+		return before - set.size();
+	}
+
+	/**
+	 * Sorts an array and moves its distinct values to the front.
+	 * 
+	 * @return the number of distinct values
+	 */
+	private static int distinct(int[] values) {
+		if (Parallel.worthIt(values.length)) {
+			Arrays.parallelSort(values);
+		} else {
+			Arrays.sort(values);
+		}
+		int length = 0;
+		for (int i=0; i<values.length; i++) {
+			if (length == 0 || values[i] != values[length - 1]) {
+				values[length++] = values[i];
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Adds the first length values of an ascending array. A few values are
+	 * added one by one to storages that add in constant time; otherwise the
+	 * values that are new are merged with the elements into a new storage.
+	 * 
+	 * @return the number of new values that were not added for lack of capacity
+	 */
+	private int addSorted(int[] values, int length) {
+		int[] elements = sortedValues(set);
+		int count = set.size();
+		int[] added = new int[SortedArrays.outputLength(SetOperation.AND_NOT, length, count)];
+		int addedLength = SortedArrays.combine(values, length, elements, count, SetOperation.AND_NOT, added);
+		int admitted = Math.min(addedLength, capacity - count);
+		if (admitted < addedLength) {
+			System.out.println("Max capacity reached. Cannot add.");
+		}
+		if (changesInPlace(admitted)) {
+			for (int i=0; i<admitted; i++) {
+				add(added[i]);
+			}
+		} else {
+			int[] merged = new int[SortedArrays.outputLength(SetOperation.OR, count, admitted)];
+			int mergedLength = SortedArrays.combine(elements, count, added, admitted, SetOperation.OR, merged);
+			replace(merged, mergedLength);
+		}
+		return addedLength - admitted;
+	}
+
+	/**
+	 * Keeps the elements that are, or are not, in the first length values of
+	 * an ascending array.
+	 * 
+	 * @param operation AND to keep the elements in the array, AND_NOT to keep the others
+	 * @return the number of elements that were removed
+	 */
+	private int keepSorted(int[] values, int length, SetOperation operation) {
+		int count = set.size();
+		if (operation == SetOperation.AND_NOT && changesInPlace(length)) {
+			for (int i=0; i<length; i++) {
+				set.remove(values[i]);
+			}
+			adaptAfter(count);
+		} else {
+			int[] kept = new int[SortedArrays.outputLength(operation, count, length)];
+			replace(kept, SortedArrays.combine(sortedValues(set), count, values, length, operation, kept));
+		}
+		return count - set.size();
+	}
+
+	/**
+	 * Test whether changing some number of values one at a time is cheaper
+	 * than rebuilding the storage, which is only so for storages that change
+	 * a value in constant time.
+	 */
+	private boolean changesInPlace(int changes) {
+		return (set instanceof HashStorage || set instanceof BitmapStorage || set instanceof RoaringStorage)
+				&& (long) changes * SortedArrays.GALLOP_RATIO < set.size();
+	}
+
+	/**
+	 * Replaces the storage by one with the first length values of an ascending array.
+	 */
+	private void replace(int[] values, int length) {
+		if (fixed == null) {
+			set = fromSorted(values, length);
+		} else if (fixed == Representation.SORTED) {
+			set = new SortedArrayStorage(values, length);
+		} else {
+			set = convert(new SortedArrayStorage(values, length), fixed, capacity);
+		}
+		chosenAt = length;
+		changes = 0;
+	}
+
+	/**
+	 * Replaces the storage by the result of a set operation, which was picked
+	 * for the values it holds.
+	 */
+	private void replace(Storage result) {
+		set = result;
+		chosenAt = result.size();
+		changes = 0;
 	}
 
 	/**
@@ -97,13 +686,7 @@ public class IntSet {
 			throw new NullPointerException("Other set is null");
 		}
 
-		IntSet intersect = new IntSet(capacity);
-		for (Integer value : this.set) {
-			if (other.has(value)) {
-				intersect.add(value);
-			}
-		}
-		return intersect;
+		return combine(other, SetOperation.AND);
 	}
 
 	/**
@@ -123,41 +706,372 @@ public class IntSet {
 			throw new NullPointerException("Other set is null");
 		}
 
-		IntSet union = new IntSet(capacity);
-		for (Integer value : this.set) {
-			union.add(value);
-		}
-		for (Integer value : other.set) {
-			union.add(value);
-		}
-		return union;
+		return combine(other, SetOperation.OR);
 	}
 
+	/**
+	 * Returns the difference of this set and another set.
+	 * 
+	 * @param other
+	 *            the set to subtract from this set
+	 * @return the difference
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) and !other.has(v))
+	 */
 	public IntSet difference(IntSet other) {
         if (other==null) {
             throw new NullPointerException("Other set is null");
         }
 
-        IntSet diff = new IntSet(capacity);
-        for (Integer value : this.set) {
-            if (!other.has(value)) {
-                diff.add(value);
-            }
-        }
-        return diff;
+        return combine(other, SetOperation.AND_NOT);
     }
 
+	/**
+	 * Returns the symmetric difference of this set and another set.
+	 * 
+	 * @param other
+	 *            the set to compare this set with
+	 * @return the symmetric difference
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) != other.has(v))
+	 */
     public IntSet symmDiff(IntSet other) {
         if (other==null) {
             throw new NullPointerException("Other set is null");
         }
 
-		IntSet diff1 = this.difference(other);
-		IntSet diff2 = other.difference(this);
-
-        return diff1.union(diff2);
+        return combine(other, SetOperation.XOR);
     }
 
+	/**
+	 * Intersects this set with another set, changing this set.
+	 * 
+	 * @pre other != null
+	 * @post forall int v: has(v) iff (this@pre.has(v) and other.has(v))
+	 */
+	public void andInPlace(IntSet other) {
+		combineInPlace(other, SetOperation.AND);
+	}
+
+	/**
+	 * Adds the elements of another set to this set. If not all of them fit,
+	 * the smallest values of the union are kept, as union() does.
+	 * 
+	 * @pre other != null
+	 * @post getCount() == min(getCapacity(), #(this@pre.getArray() union other.getArray()))
+	 */
+	public void orInPlace(IntSet other) {
+		combineInPlace(other, SetOperation.OR);
+	}
+
+	/**
+	 * Removes the elements of another set from this set.
+	 * 
+	 * @pre other != null
+	 * @post forall int v: has(v) iff (this@pre.has(v) and !other.has(v))
+	 */
+	public void andNotInPlace(IntSet other) {
+		combineInPlace(other, SetOperation.AND_NOT);
+	}
+
+	/**
+	 * Changes this set into the symmetric difference of this set and another
+	 * set. If not all values fit, the smallest ones are kept, as symmDiff() does.
+	 * 
+	 * @pre other != null
+	 * @post getCount() == min(getCapacity(), #{int v | this@pre.has(v) != other.has(v)})
+	 */
+	public void xorInPlace(IntSet other) {
+		combineInPlace(other, SetOperation.XOR);
+	}
+
+	/**
+	 * Combines another set into this set without allocating where the storages
+	 * allow it. Bitmaps are combined word by word into this bitmap; an
+	 * intersection or difference drops values from a sorted array, list or
+	 * bitmap while going through it, and a difference with a few values
+	 * removes them one by one. Anything else builds a new storage, as combine()
+	 * does. Either way, the storage is picked again afterwards as it is after
+	 * add() and remove().
+	 */
+	private void combineInPlace(IntSet other, SetOperation operation) {
+		if (other==null) {
+			throw new NullPointerException("Other set is null");
+		}
+		if (other == this) {
+			if (!operation.keepsBoth()) {
+				replace(emptyStorage(fixed == null ? Representation.LIST : fixed, capacity));
+			}
+			return;
+		}
+		int before = set.size();
+		if (set instanceof BitmapStorage && other.set instanceof BitmapStorage
+				&& ((BitmapStorage) set).combineInPlace((BitmapStorage) other.set, operation, capacity)) {
+			adaptAfter(before);
+			return;
+		}
+		boolean filters = set instanceof SortedArrayStorage || set instanceof ListStorage
+				|| set instanceof BitmapStorage;
+		if (operation == SetOperation.AND_NOT && changesInPlace(other.set.size())) {
+			other.set.removeFrom(set);
+		} else if (operation == SetOperation.AND_NOT && filters) {
+			set.filter(other.set, false);
+		} else if (operation == SetOperation.AND && filters) {
+			set.filter(other.set, true);
+		} else {
+			replace(combine(other, operation).set);
+			return;
+		}
+		adaptAfter(before);
+	}
+
+	/**
+	 * Returns the number of elements of the intersection of this set and
+	 * another set, without computing the intersection.
+	 * 
+	 * @pre other != null
+	 * @post return == intersect(other).getCount(), if the capacity allows it
+	 */
+	public int intersectionCount(IntSet other) {
+		if (other==null) {
+			throw new NullPointerException("Other set is null");
+		}
+		if (set instanceof BitmapStorage && other.set instanceof BitmapStorage) {
+			return ((BitmapStorage) set).intersectionCount((BitmapStorage) other.set);
+		} else if (set instanceof RoaringStorage && other.set instanceof RoaringStorage) {
+			return RoaringStorage.intersectionCount((RoaringStorage) set, (RoaringStorage) other.set);
+		}
+		final Storage small = set.size() <= other.set.size() ? set : other.set;
+		final Storage large = small == set ? other.set : set;
+		if (large instanceof ListStorage
+				|| (small instanceof SortedArrayStorage && large instanceof SortedArrayStorage)) {
+			return SortedArrays.intersectionCount(sortedValues(small), small.size(),
+					sortedValues(large), large.size());
+		}
+		final int[] count = {0};
+		small.forEach(value -> {
+			if (large.has(value)) {
+				count[0]++;
+			}
+		});
+		return count[0];
+	}
+
+	/**
+	 * Returns the number of elements of the union of this set and another set,
+	 * without computing the union or limiting it to the capacity.
+	 * 
+	 * @pre other != null
+	 * @post return == #(getArray() union other.getArray())
+	 */
+	public long unionCount(IntSet other) {
+		return (long) getCount() + other.getCount() - intersectionCount(other);
+	}
+
+	/**
+	 * Returns the number of elements of the difference of this set and another
+	 * set, without computing the difference.
+	 * 
+	 * @pre other != null
+	 * @post return == difference(other).getCount()
+	 */
+	public int differenceCount(IntSet other) {
+		return getCount() - intersectionCount(other);
+	}
+
+	/**
+	 * Returns the number of elements of the symmetric difference of this set
+	 * and another set, without computing it or limiting it to the capacity.
+	 * 
+	 * @pre other != null
+	 * @post return == #{int v | has(v) != other.has(v)}
+	 */
+	public long symmDiffCount(IntSet other) {
+		return (long) getCount() + other.getCount() - 2L * intersectionCount(other);
+	}
+
+	/**
+	 * Combines this set with another set in a single pass. Two bitmaps are
+	 * combined a word at a time, as long as the result does not get too
+	 * sparse. An intersection or difference with a hash table probes the hash
+	 * table for the values of the other set. If either set is stored in
+	 * chunks, both are combined chunk by chunk; all other storages are merged
+	 * as ascending arrays, galloping through the longer one if the other is
+	 * much shorter.
+	 * The result has the capacity of this set and keeps its smallest values
+	 * if it would otherwise exceed that capacity.
+	 */
+	private IntSet combine(IntSet other, SetOperation operation) {
+		Storage result = null;
+		if (set instanceof BitmapStorage && other.set instanceof BitmapStorage) {
+			BitmapStorage left = (BitmapStorage) set;
+			BitmapStorage right = (BitmapStorage) other.set;
+			long maxCount = operation.maxSize(left.size(), right.size());
+			if (operation == SetOperation.AND || operation == SetOperation.AND_NOT
+					|| left.hullSpan(right) <= DENSE_BITS_PER_VALUE * maxCount) {
+				result = fit(BitmapStorage.combine(left, right, operation));
+			}
+		}
+		if (result == null && operation == SetOperation.AND && set instanceof HashStorage) {
+			result = probe(other.set, set, true);
+		} else if (result == null && other.set instanceof HashStorage
+				&& (operation == SetOperation.AND || operation == SetOperation.AND_NOT)) {
+			result = probe(set, other.set, operation == SetOperation.AND);
+		}
+		if (result == null && (set instanceof RoaringStorage || other.set instanceof RoaringStorage)) {
+			result = RoaringStorage.combine(toRoaring(set), toRoaring(other.set), operation);
+		}
+		if (result == null) {
+			int[] left = sortedValues(set);
+			int[] right = sortedValues(other.set);
+			int leftLength = set.size();
+			int rightLength = other.set.size();
+			int[] values = new int[SortedArrays.outputLength(operation, leftLength, rightLength)];
+			int length = SortedArrays.combine(left, leftLength, right, rightLength, operation, values);
+			if (fixed == Representation.SORTED) {
+				result = new SortedArrayStorage(values, length);
+			} else {
+				result = fromSorted(values, length);
+			}
+		}
+		result = limit(result, capacity);
+		if (fixed != null && result.representation() != fixed) {
+			result = convert(result, fixed, capacity);
+		}
+		return new IntSet(capacity, result, fixed);
+	}
+
+	/**
+	 * Creates a set with the given capacity around an existing storage.
+	 * 
+	 * @pre set.size() <= capacity
+	 */
+	private IntSet(int capacity, Storage set, Representation fixed) {
+		this.capacity = capacity;
+		this.set = set;
+		this.fixed = fixed;
+		chosenAt = set.size();
+	}
+
+	/**
+	 * Returns a storage of a given representation with the values of another one.
+	 */
+	private static Storage convert(Storage storage, Representation representation, int capacity) {
+		int[] values = storage.sortedArray();
+		if (values.length == 0) {
+			return emptyStorage(representation, capacity);
+		}
+		switch (representation) {
+		case BITMAP:
+			return BitmapStorage.ofSorted(values, values.length);
+		case ROARING:
+			return RoaringStorage.ofSorted(values, values.length);
+		case HASH:
+			Storage table = new HashStorage(capacity);
+			for (int value : values) {
+				table.add(value);
+			}
+			return table;
+		case SORTED:
+			return new SortedArrayStorage(values, values.length);
+		default:
+			return new ListStorage(values, values.length);
+		}
+	}
+
+	/**
+	 * Returns the storage of the values of one storage that are, or are not,
+	 * in a hash table.
+	 */
+	private static Storage probe(Storage values, Storage table, boolean in) {
+		int[] array = values.toArray();
+		int length = 0;
+		for (int value : array) {
+			if (table.has(value) == in) {
+				array[length++] = value;
+			}
+		}
+		Arrays.sort(array, 0, length);
+		return fromSorted(array, length);
+	}
+
+	/**
+	 * Creates the storage for the first length values of an ascending array.
+	 */
+	private static Storage fromSorted(int[] values, int length) {
+		switch (choose(values, length)) {
+		case BITMAP:
+			return BitmapStorage.ofSorted(values, length);
+		case ROARING:
+			return RoaringStorage.ofSorted(values, length);
+		case SORTED:
+			return new SortedArrayStorage(values, length);
+		default:
+			return new ListStorage(values, length);
+		}
+	}
+
+	/**
+	 * Creates a set with the first length values of an ascending array,
+	 * keeping the smallest ones if there are more than capacity.
+	 */
+	static IntSet ofSorted(int capacity, int[] values, int length) {
+		return new IntSet(capacity, limit(fromSorted(values, length), capacity), null);
+	}
+
+	/**
+	 * Returns an array that is ascending up to getCount(), which may be
+	 * shared with this set and must not be changed.
+	 */
+	int[] sortedValues() {
+		return sortedValues(set);
+	}
+
+	/**
+	 * Returns an array that is ascending up to storage.size(), which is
+	 * shared with the storage if it is a sorted array.
+	 */
+	private static int[] sortedValues(Storage storage) {
+		if (storage instanceof SortedArrayStorage) {
+			return ((SortedArrayStorage) storage).values();
+		}
+		return storage.sortedArray();
+	}
+
+	/**
+	 * Returns a storage as chunks, converting it if needed.
+	 */
+	private static RoaringStorage toRoaring(Storage storage) {
+		if (storage instanceof RoaringStorage) {
+			return (RoaringStorage) storage;
+		}
+		int[] values = storage.sortedArray();
+		return RoaringStorage.ofSorted(values, values.length);
+	}
+
+	/**
+	 * Replaces a bitmap that has become too sparse by a tighter storage.
+	 */
+	private static Storage fit(BitmapStorage bitmap) {
+		int count = bitmap.size();
+		if (count < DENSE_MIN_COUNT || bitmap.span() > (long) DENSE_BITS_PER_VALUE * count) {
+			int[] values = bitmap.sortedArray();
+			return fromSorted(values, values.length);
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Drops the largest values of a storage that holds more than capacity values.
+	 */
+	private static Storage limit(Storage storage, int capacity) {
+		if (storage.size() <= capacity) {
+			return storage;
+		}
+		System.out.println("Max capacity reached. Cannot add.");
+		return fromSorted(storage.sortedArray(), capacity);
+	}
+
 	/**
 	 * Returns a representation of this set as an array
 	 * 
@@ -165,11 +1079,124 @@ public class IntSet {
 	 * @post forall int v in return: has(v)
 	 */
 	public int[] getArray() {
-		int[] array = new int[set.size()];
-		for (int i=0; i<set.size(); i++) {
-			array[i] = set.get(i);
+		return set.toArray();
+	}
+
+	/**
+	 * Writes the elements of the set to the start of an array, in the same
+	 * order as getArray(), so that a set can be exported without allocating.
+	 * 
+	 * @param dest
+	 *            the array to write to
+	 * @return getCount()
+	 * @pre dest != null
+	 * @pre dest.length >= getCount()
+	 * @post forall int i < getCount(): dest[i] == getArray()[i]
+	 */
+	public int getArray(int[] dest) {
+		if (dest == null) {
+			throw new NullPointerException("Array is null");
+		} else if (dest.length < set.size()) {
+			throw new IllegalArgumentException("Array of length " + dest.length
+					+ " cannot hold " + set.size() + " elements");
+		}
+		set.copyTo(dest);
+		return set.size();
+	}
+
+	/**
+	 * Passes every element of the set to an action, in the same order as
+	 * getArray(), without copying the set.
+	 * 
+	 * @pre action != null
+	 * @pre the set does not change while the action runs
+	 */
+	public void forEach(IntConsumer action) {
+		if (action == null) {
+			throw new NullPointerException("Action is null");
 		}
-		return array;
+		set.forEach(action);
+	}
+
+	/**
+	 * Returns an iterator over the elements of the set, in the same order as
+	 * getArray(). The iterator does not box the elements.
+	 * 
+	 * @pre the set does not change while the iterator is in use
+	 */
+	public PrimitiveIterator.OfInt iterator() {
+		return Spliterators.iterator(set.spliterator());
+	}
+
+	/**
+	 * Returns a spliterator over the elements of the set, in the same order as
+	 * getArray(). It splits the set into parts of about equal size.
+	 * 
+	 * @pre the set does not change while the spliterator is in use
+	 */
+	public Spliterator.OfInt spliterator() {
+		return set.spliterator();
+	}
+
+	/**
+	 * Returns a stream of the elements of the set, in the same order as
+	 * getArray(). Parallel streams split the set without copying it.
+	 * 
+	 * @pre the set does not change while the stream is in use
+	 */
+	public IntStream stream() {
+		return StreamSupport.intStream(set.spliterator(), false);
+	}
+
+	/**
+	 * Writes the set to a stream in a compact binary format. Sparse sets are
+	 * written as the distances between successive values, dense sets as a
+	 * bitmap. The result can be read back with load(), or used in place with
+	 * MappedIntSet.map().
+	 * 
+	 * @param out
+	 *            the stream to write to, which is not closed
+	 * @throws IOException if the stream cannot be written
+	 * @pre out != null
+	 */
+	public void save(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		BinaryFormat.write(set.sortedArray(), capacity, data);
+		data.flush();
+	}
+
+	/**
+	 * Reads a set written by save() from a stream.
+	 * 
+	 * @param in
+	 *            the stream to read from, which is not closed
+	 * @return the set in the stream
+	 * @throws IOException if the stream cannot be read or does not hold a set
+	 * @pre in != null
+	 */
+	public static IntSet load(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		byte[] header = new byte[BinaryFormat.HEADER_BYTES];
+		data.readFully(header);
+		ByteBuffer buffer = ByteBuffer.wrap(header);
+		if (buffer.getInt(0) != BinaryFormat.MAGIC) {
+			throw new IOException("Not a set file");
+		}
+		long bytes = BinaryFormat.size(buffer);
+		if (bytes < BinaryFormat.HEADER_BYTES || bytes > Integer.MAX_VALUE) {
+			throw new IOException("Corrupt set file");
+		}
+		byte[] all = Arrays.copyOf(header, (int) bytes);
+		data.readFully(all, BinaryFormat.HEADER_BYTES, all.length - BinaryFormat.HEADER_BYTES);
+		buffer = ByteBuffer.wrap(all);
+		BinaryFormat.check(buffer);
+		int capacity = buffer.getInt(BinaryFormat.CAPACITY);
+		int[] values = new int[buffer.getInt(BinaryFormat.COUNT)];
+		BinaryFormat.Cursor cursor = new BinaryFormat.Cursor(buffer);
+		for (int i=0; i<values.length; i++) {
+			values[i] = cursor.next();
+		}
+		return ofSorted(capacity, values, values.length);
 	}
 
 	/**
@@ -186,6 +1213,38 @@ public class IntSet {
 		return capacity;
 	}
 
+	/**
+	 * Writes the string representation of the set, as returned by toString(),
+	 * to an Appendable. The digits go through a buffer of fixed size, without
+	 * creating a string per element.
+	 * 
+	 * @param out
+	 *            where to write the set to
+	 * @return out
+	 * @throws IOException if out throws one
+	 * @pre out != null
+	 */
+	public <A extends Appendable> A appendTo(A out) throws IOException {
+		if (out == null) {
+			throw new NullPointerException("Appendable is null");
+		}
+		DecimalWriter writer = new DecimalWriter(out, set.size());
+		set.forEach(writer);
+		writer.finish();
+		return out;
+	}
+
+	/**
+	 * Writes the string representation of the set, as returned by toString(),
+	 * to a writer, which is neither flushed nor closed.
+	 * 
+	 * @throws IOException if the writer cannot be written
+	 * @pre out != null
+	 */
+	public void writeTo(Writer out) throws IOException {
+		appendTo(out);
+	}
+
 	/**
 	 * Returns a string representation of the set. The empty set is represented
 	 * as {}, a singleton set as {x}, a set with more than one element like {x,
@@ -193,18 +1252,11 @@ public class IntSet {
 	 */
 	@Override
 	public String toString() {
-		StringBuffer string = new StringBuffer("{");
-
-		for (int i=0; i<set.size(); i++) {
-
-			if (i == set.size()-1) {
-				string.append(set.get(i).toString());
-			} else {
-				string.append(set.get(i).toString() + ", ");
-			}
+		try {
+			return appendTo(new StringBuilder((int) Math.min(2 + 8L * set.size(), 1 << 24))).toString();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		string.append("}");
-		return string.toString();
 	}
 
 }
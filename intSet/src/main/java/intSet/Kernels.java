@@ -0,0 +1,276 @@
+package intSet;
+
+import java.util.Arrays;
+
+/**
+ * The inner loops of the bitmap and sorted array operations. Every word
+ * operation also counts the bits it leaves set, so a combined bitmap and its
+ * count come out of a single pass.
+ *
+ * By default the loops handle four words at a time, with a separate count
+ * for each, so that the words do not depend on each other and the JIT can
+ * keep several of them in flight or in vector registers at once. Searches
+ * in sorted arrays narrow the range down binary to a small block, which is
+ * then counted through without branches. Setting the system property
+ * intSet.kernels to "scalar" before the first set operation picks plain
+ * loops and binary searches instead, which is what the benchmarks compare
+ * against.
+ */
+final class Kernels {
+
+	/**
+	 * Whether the unrolled kernels are used rather than the plain loops.
+	 */
+	static final boolean UNROLLED = !"scalar".equals(System.getProperty("intSet.kernels"));
+
+	/**
+	 * Number of values below which a search counts through a block instead
+	 * of halving it further.
+	 */
+	private static final int BLOCK = 16;
+
+	private Kernels() {
+	}
+
+	/**
+	 * Writes left[leftFrom + i] & right[rightFrom + i] to out[outFrom + i]
+	 * for all i below length. The output may be one of the inputs at the same
+	 * offset.
+	 *
+	 * @return the number of bits set in the written words
+	 */
+	static int and(long[] left, int leftFrom, long[] right, int rightFrom, long[] out, int outFrom, int length) {
+		int count0 = 0;
+		int i = 0;
+		if (UNROLLED) {
+			int count1 = 0;
+			int count2 = 0;
+			int count3 = 0;
+			for (; i+4<=length; i+=4) {
+				long word0 = left[leftFrom + i] & right[rightFrom + i];
+				long word1 = left[leftFrom + i + 1] & right[rightFrom + i + 1];
+				long word2 = left[leftFrom + i + 2] & right[rightFrom + i + 2];
+				long word3 = left[leftFrom + i + 3] & right[rightFrom + i + 3];
+				out[outFrom + i] = word0;
+				out[outFrom + i + 1] = word1;
+				out[outFrom + i + 2] = word2;
+				out[outFrom + i + 3] = word3;
+				count0 += Long.bitCount(word0);
+				count1 += Long.bitCount(word1);
+				count2 += Long.bitCount(word2);
+				count3 += Long.bitCount(word3);
+			}
+			count0 += count1 + count2 + count3;
+		}
+		for (; i<length; i++) {
+			long word = left[leftFrom + i] & right[rightFrom + i];
+			out[outFrom + i] = word;
+			count0 += Long.bitCount(word);
+		}
+		return count0;
+	}
+
+	/**
+	 * Writes left[leftFrom + i] | right[rightFrom + i] to out[outFrom + i],
+	 * as and() does.
+	 *
+	 * @return the number of bits set in the written words
+	 */
+	static int or(long[] left, int leftFrom, long[] right, int rightFrom, long[] out, int outFrom, int length) {
+		int count0 = 0;
+		int i = 0;
+		if (UNROLLED) {
+			int count1 = 0;
+			int count2 = 0;
+			int count3 = 0;
+			for (; i+4<=length; i+=4) {
+				long word0 = left[leftFrom + i] | right[rightFrom + i];
+				long word1 = left[leftFrom + i + 1] | right[rightFrom + i + 1];
+				long word2 = left[leftFrom + i + 2] | right[rightFrom + i + 2];
+				long word3 = left[leftFrom + i + 3] | right[rightFrom + i + 3];
+				out[outFrom + i] = word0;
+				out[outFrom + i + 1] = word1;
+				out[outFrom + i + 2] = word2;
+				out[outFrom + i + 3] = word3;
+				count0 += Long.bitCount(word0);
+				count1 += Long.bitCount(word1);
+				count2 += Long.bitCount(word2);
+				count3 += Long.bitCount(word3);
+			}
+			count0 += count1 + count2 + count3;
+		}
+		for (; i<length; i++) {
+			long word = left[leftFrom + i] | right[rightFrom + i];
+			out[outFrom + i] = word;
+			count0 += Long.bitCount(word);
+		}
+		return count0;
+	}
+
+	/**
+	 * Writes left[leftFrom + i] & ~right[rightFrom + i] to out[outFrom + i],
+	 * as and() does.
+	 *
+	 * @return the number of bits set in the written words
+	 */
+	static int andNot(long[] left, int leftFrom, long[] right, int rightFrom, long[] out, int outFrom, int length) {
+		int count0 = 0;
+		int i = 0;
+		if (UNROLLED) {
+			int count1 = 0;
+			int count2 = 0;
+			int count3 = 0;
+			for (; i+4<=length; i+=4) {
+				long word0 = left[leftFrom + i] & ~right[rightFrom + i];
+				long word1 = left[leftFrom + i + 1] & ~right[rightFrom + i + 1];
+				long word2 = left[leftFrom + i + 2] & ~right[rightFrom + i + 2];
+				long word3 = left[leftFrom + i + 3] & ~right[rightFrom + i + 3];
+				out[outFrom + i] = word0;
+				out[outFrom + i + 1] = word1;
+				out[outFrom + i + 2] = word2;
+				out[outFrom + i + 3] = word3;
+				count0 += Long.bitCount(word0);
+				count1 += Long.bitCount(word1);
+				count2 += Long.bitCount(word2);
+				count3 += Long.bitCount(word3);
+			}
+			count0 += count1 + count2 + count3;
+		}
+		for (; i<length; i++) {
+			long word = left[leftFrom + i] & ~right[rightFrom + i];
+			out[outFrom + i] = word;
+			count0 += Long.bitCount(word);
+		}
+		return count0;
+	}
+
+	/**
+	 * Writes left[leftFrom + i] ^ right[rightFrom + i] to out[outFrom + i],
+	 * as and() does.
+	 *
+	 * @return the number of bits set in the written words
+	 */
+	static int xor(long[] left, int leftFrom, long[] right, int rightFrom, long[] out, int outFrom, int length) {
+		int count0 = 0;
+		int i = 0;
+		if (UNROLLED) {
+			int count1 = 0;
+			int count2 = 0;
+			int count3 = 0;
+			for (; i+4<=length; i+=4) {
+				long word0 = left[leftFrom + i] ^ right[rightFrom + i];
+				long word1 = left[leftFrom + i + 1] ^ right[rightFrom + i + 1];
+				long word2 = left[leftFrom + i + 2] ^ right[rightFrom + i + 2];
+				long word3 = left[leftFrom + i + 3] ^ right[rightFrom + i + 3];
+				out[outFrom + i] = word0;
+				out[outFrom + i + 1] = word1;
+				out[outFrom + i + 2] = word2;
+				out[outFrom + i + 3] = word3;
+				count0 += Long.bitCount(word0);
+				count1 += Long.bitCount(word1);
+				count2 += Long.bitCount(word2);
+				count3 += Long.bitCount(word3);
+			}
+			count0 += count1 + count2 + count3;
+		}
+		for (; i<length; i++) {
+			long word = left[leftFrom + i] ^ right[rightFrom + i];
+			out[outFrom + i] = word;
+			count0 += Long.bitCount(word);
+		}
+		return count0;
+	}
+
+	/**
+	 * Combines words with one of the operations above.
+	 *
+	 * @return the number of bits set in the written words
+	 */
+	static int combine(SetOperation operation, long[] left, int leftFrom, long[] right, int rightFrom,
+			long[] out, int outFrom, int length) {
+		if (operation == SetOperation.AND) {
+			return and(left, leftFrom, right, rightFrom, out, outFrom, length);
+		} else if (operation == SetOperation.OR) {
+			return or(left, leftFrom, right, rightFrom, out, outFrom, length);
+		} else if (operation == SetOperation.AND_NOT) {
+			return andNot(left, leftFrom, right, rightFrom, out, outFrom, length);
+		}
+		return xor(left, leftFrom, right, rightFrom, out, outFrom, length);
+	}
+
+	/**
+	 * Returns the number of bits set in both left[leftFrom + i] and
+	 * right[rightFrom + i] for all i below length, without writing them.
+	 */
+	static int andCount(long[] left, int leftFrom, long[] right, int rightFrom, int length) {
+		int count0 = 0;
+		int i = 0;
+		if (UNROLLED) {
+			int count1 = 0;
+			int count2 = 0;
+			int count3 = 0;
+			for (; i+4<=length; i+=4) {
+				count0 += Long.bitCount(left[leftFrom + i] & right[rightFrom + i]);
+				count1 += Long.bitCount(left[leftFrom + i + 1] & right[rightFrom + i + 1]);
+				count2 += Long.bitCount(left[leftFrom + i + 2] & right[rightFrom + i + 2]);
+				count3 += Long.bitCount(left[leftFrom + i + 3] & right[rightFrom + i + 3]);
+			}
+			count0 += count1 + count2 + count3;
+		}
+		for (; i<length; i++) {
+			count0 += Long.bitCount(left[leftFrom + i] & right[rightFrom + i]);
+		}
+		return count0;
+	}
+
+	/**
+	 * Returns the number of bits set in the words from up to but excluding to.
+	 */
+	static int bitCount(long[] words, int from, int to) {
+		int count0 = 0;
+		int i = from;
+		if (UNROLLED) {
+			int count1 = 0;
+			int count2 = 0;
+			int count3 = 0;
+			for (; i+4<=to; i+=4) {
+				count0 += Long.bitCount(words[i]);
+				count1 += Long.bitCount(words[i + 1]);
+				count2 += Long.bitCount(words[i + 2]);
+				count3 += Long.bitCount(words[i + 3]);
+			}
+			count0 += count1 + count2 + count3;
+		}
+		for (; i<to; i++) {
+			count0 += Long.bitCount(words[i]);
+		}
+		return count0;
+	}
+
+	/**
+	 * Returns the first index from from on where an ascending array holds at
+	 * least value, or to if there is none.
+	 */
+	static int lowerBound(int[] values, int from, int to, int value) {
+		if (!UNROLLED) {
+			int index = Arrays.binarySearch(values, from, to, value);
+			return index >= 0 ? index : -index - 1;
+		}
+		int low = from;
+		int high = to;
+		while (high - low > BLOCK) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		int index = low;
+		for (int i=low; i<high; i++) {
+			index += values[i] < value ? 1 : 0;
+		}
+		return index;
+	}
+
+}
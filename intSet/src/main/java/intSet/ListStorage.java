@@ -0,0 +1,164 @@
+package intSet;
+
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Storage that keeps the values in insertion order in a list. It is cheap for
+ * small sets, but every lookup is a linear scan over boxed values.
+ */
+class ListStorage extends Storage {
+
+	private ArrayList<Integer> list;
+
+	ListStorage(int initialCapacity) {
+		list = new ArrayList<Integer>(initialCapacity);
+	}
+
+	/**
+	 * Creates a list holding the first length values of an array.
+	 *
+	 * @pre the first length values are distinct
+	 */
+	ListStorage(int[] values, int length) {
+		list = new ArrayList<Integer>(length);
+		for (int i=0; i<length; i++) {
+			list.add(values[i]);
+		}
+	}
+
+	@Override
+	IntSet.Representation representation() {
+		return IntSet.Representation.LIST;
+	}
+
+	@Override
+	boolean has(int value) {
+		return list.contains(value);
+	}
+
+	@Override
+	boolean add(int value) {
+		if (list.contains(value)) {
+			return false;
+		}
+		list.add(value);
+		changed();
+		return true;
+	}
+
+	@Override
+	boolean remove(int value) {
+		if (!list.remove((Integer) value)) {
+			return false;
+		}
+		changed();
+		return true;
+	}
+
+	@Override
+	void filter(Storage other, boolean keep) {
+		int kept = 0;
+		for (int i=0; i<list.size(); i++) {
+			Integer value = list.get(i);
+			if (other.has(value) == keep) {
+				list.set(kept++, value);
+			}
+		}
+		if (kept < list.size()) {
+			for (int i=list.size() - 1; i>=kept; i--) {
+				list.remove(i);
+			}
+			changed();
+		}
+	}
+
+	@Override
+	void removeFrom(Storage target) {
+		for (int i=0; i<list.size(); i++) {
+			target.remove(list.get(i));
+		}
+	}
+
+	@Override
+	int size() {
+		return list.size();
+	}
+
+	@Override
+	int[] toArray() {
+		int[] array = new int[list.size()];
+		for (int i=0; i<list.size(); i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	@Override
+	void forEach(IntConsumer action) {
+		for (int i=0; i<list.size(); i++) {
+			action.accept(list.get(i));
+		}
+	}
+
+	@Override
+	Spliterator.OfInt spliterator() {
+		return new ListSpliterator(list, 0, list.size());
+	}
+
+	/**
+	 * Spliterator over a range of indices of the list, which splits in halves.
+	 */
+	private static class ListSpliterator implements Spliterator.OfInt {
+
+		private final ArrayList<Integer> list;
+		private int index;
+		private final int end;
+
+		ListSpliterator(ArrayList<Integer> list, int index, int end) {
+			this.list = list;
+			this.index = index;
+			this.end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (index == end) {
+				return false;
+			}
+			action.accept(list.get(index++));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			while (index < end) {
+				action.accept(list.get(index++));
+			}
+		}
+
+		@Override
+		public Spliterator.OfInt trySplit() {
+			int middle = (index + end) >>> 1;
+			if (middle == index) {
+				return null;
+			}
+			Spliterator.OfInt prefix = new ListSpliterator(list, index, middle);
+			index = middle;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+		}
+
+	}
+
+}
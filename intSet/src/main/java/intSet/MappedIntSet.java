@@ -0,0 +1,237 @@
+package intSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * A set saved with IntSet.save() that is read straight from its file through
+ * a memory mapping. Opening the file does not read it; lookups and set
+ * operations only touch the pages of the file they need, and the values are
+ * never copied into a set on the heap. The set cannot be changed.
+ *
+ * A memory mapping covers at most 2 GB, which limits the size of the file.
+ *
+ * @invariant getCount() >= 0
+ * @invariant getCount() <= getCapacity()
+ */
+public class MappedIntSet {
+
+	private final ByteBuffer buffer;
+
+	private MappedIntSet(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Maps a file written by IntSet.save() into memory.
+	 * 
+	 * @param file
+	 *            the file to map
+	 * @return the set in the file
+	 * @throws IOException if the file cannot be read or does not hold a set
+	 * @pre file != null
+	 */
+	public static MappedIntSet map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			BinaryFormat.check(buffer);
+			return new MappedIntSet(buffer);
+		}
+	}
+
+	/**
+	 * Test whether the set is empty.
+	 * 
+	 * @return getCount() == 0
+	 */
+	public boolean isEmpty() {
+		return getCount() == 0;
+	}
+
+	/**
+	 * Test whether a value is in the set
+	 * 
+	 * @return exists int v in getArray() such that v == value
+	 */
+	public boolean has(int value) {
+		return BinaryFormat.has(buffer, value);
+	}
+
+	/**
+	 * Passes every element of the set to an action in ascending order.
+	 * 
+	 * @pre action != null
+	 */
+	public void forEach(IntConsumer action) {
+		if (action == null) {
+			throw new NullPointerException("Action is null");
+		}
+		BinaryFormat.Cursor cursor = new BinaryFormat.Cursor(buffer);
+		while (cursor.hasNext()) {
+			action.accept(cursor.next());
+		}
+	}
+
+	/**
+	 * Returns the intersection of this set and another set.
+	 * 
+	 * @param other
+	 *            the set to intersect this set with
+	 * @return the intersection
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) and other.has(v))
+	 */
+	public IntSet intersect(IntSet other) {
+		return combine(other, SetOperation.AND);
+	}
+
+	/**
+	 * Returns the union of this set and another set.
+	 * 
+	 * @param other
+	 *            the set to union this set with
+	 * @return the union
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) or other.has(v))
+	 */
+	public IntSet union(IntSet other) {
+		return combine(other, SetOperation.OR);
+	}
+
+	/**
+	 * Returns the difference of this set and another set.
+	 * 
+	 * @param other
+	 *            the set to subtract from this set
+	 * @return the difference
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) and !other.has(v))
+	 */
+	public IntSet difference(IntSet other) {
+		return combine(other, SetOperation.AND_NOT);
+	}
+
+	/**
+	 * Returns the symmetric difference of this set and another set.
+	 * 
+	 * @param other
+	 *            the set to compare this set with
+	 * @return the symmetric difference
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) != other.has(v))
+	 */
+	public IntSet symmDiff(IntSet other) {
+		return combine(other, SetOperation.XOR);
+	}
+
+	/**
+	 * Combines this set with another one. An intersection with a much smaller
+	 * set looks up the values of the smaller set in the file; everything else
+	 * merges the values of the file, as they are decoded, with the ascending
+	 * values of the other set.
+	 * The result has the capacity of this set.
+	 */
+	private IntSet combine(IntSet other, SetOperation operation) {
+		if (other==null) {
+			throw new NullPointerException("Other set is null");
+		}
+		int[] right = other.sortedValues();
+		int rightLength = other.getCount();
+		int[] out = new int[operation.maxSize(getCount(), rightLength)];
+		int n = 0;
+		if (operation == SetOperation.AND && (long) rightLength * SortedArrays.GALLOP_RATIO < getCount()) {
+			for (int i=0; i<rightLength; i++) {
+				if (has(right[i])) {
+					out[n++] = right[i];
+				}
+			}
+			return IntSet.ofSorted(getCapacity(), out, n);
+		}
+
+		BinaryFormat.Cursor cursor = new BinaryFormat.Cursor(buffer);
+		int j = 0;
+		boolean pending = cursor.hasNext();
+		int left = pending ? cursor.next() : 0;
+		while (pending && j < rightLength) {
+			if (left < right[j]) {
+				if (operation.keepsLeft()) {
+					out[n++] = left;
+				}
+				pending = cursor.hasNext();
+				left = pending ? cursor.next() : 0;
+			} else if (left > right[j]) {
+				if (operation.keepsRight()) {
+					out[n++] = right[j];
+				}
+				j++;
+			} else {
+				if (operation.keepsBoth()) {
+					out[n++] = left;
+				}
+				pending = cursor.hasNext();
+				left = pending ? cursor.next() : 0;
+				j++;
+			}
+		}
+		while (pending && operation.keepsLeft()) {
+			out[n++] = left;
+			pending = cursor.hasNext();
+			left = pending ? cursor.next() : 0;
+		}
+		if (operation.keepsRight()) {
+			System.arraycopy(right, j, out, n, rightLength - j);
+			n += rightLength - j;
+		}
+		return IntSet.ofSorted(getCapacity(), out, n);
+	}
+
+	/**
+	 * Reads the whole set into a set on the heap, which can be changed.
+	 */
+	public IntSet toIntSet() {
+		return IntSet.ofSorted(getCapacity(), getArray(), getCount());
+	}
+
+	/**
+	 * Returns the elements of the set as an ascending array.
+	 * 
+	 * @post return.length == getCount()
+	 */
+	public int[] getArray() {
+		int[] array = new int[getCount()];
+		BinaryFormat.Cursor cursor = new BinaryFormat.Cursor(buffer);
+		for (int i=0; i<array.length; i++) {
+			array[i] = cursor.next();
+		}
+		return array;
+	}
+
+	/**
+	 * Returns the number of elements in the set.
+	 */
+	public int getCount() {
+		return buffer.getInt(BinaryFormat.COUNT);
+	}
+
+	/**
+	 * Returns the maximal number of elements in the set.
+	 */
+	public int getCapacity() {
+		return buffer.getInt(BinaryFormat.CAPACITY);
+	}
+
+	/**
+	 * Returns a string representation of the set, in the same format as
+	 * IntSet.toString().
+	 */
+	@Override
+	public String toString() {
+		return toIntSet().toString();
+	}
+
+}
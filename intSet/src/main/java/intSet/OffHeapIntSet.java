@@ -0,0 +1,377 @@
+package intSet;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.IntConsumer;
+
+/**
+ * Representation of a finite set of integers from a fixed range, stored as a
+ * bitmap outside of the Java heap. A set that covers all 2^32 ints takes 512 MB
+ * of memory, which the garbage collector never has to scan or copy and
+ * which does not show up in heap dumps.
+ *
+ * The bitmap is kept in a direct buffer. Its memory is only given back when
+ * the garbage collector collects the buffer, not at a moment the caller
+ * chooses, and direct buffers together may not take more than
+ * -XX:MaxDirectMemorySize, which defaults to the maximal heap size. close()
+ * drops the reference to the buffer, so that its memory can be reclaimed
+ * even while the set itself is still referenced, after which the set can no
+ * longer be used; every method but close(), isClosed() and getCapacity() then
+ * throws an IllegalStateException.
+ *
+ * Like IntSet, this class is not safe for use by several threads at once.
+ *
+ * @invariant getCount() >= 0
+ * @invariant getCount() <= getCapacity()
+ */
+public final class OffHeapIntSet implements AutoCloseable {
+
+	private final int capacity;
+	private final int lowest;
+	private final int highest;
+
+	/**
+	 * The value of bit 0 of word 0, which is a multiple of 64 so that the
+	 * words of two sets line up.
+	 */
+	private final long base;
+	private final long words;
+	private int count;
+
+	/**
+	 * The words in native byte order, or null once the set is closed.
+	 */
+	private ByteBuffer buffer;
+
+	/**
+	 * Creates a new set with 0 elements that can hold values from lowest up
+	 * to and including highest.
+	 * 
+	 * @param capacity
+	 *            the maximal number of elements this set can have
+	 * @param lowest
+	 *            the smallest value this set can have
+	 * @param highest
+	 *            the largest value this set can have
+	 * @pre capacity >= 0
+	 * @pre lowest <= highest
+	 * @post getCount() == 0
+	 * @post getCapacity() == capacity
+	 */
+	public OffHeapIntSet(int capacity, int lowest, int highest) {
+		if (capacity < 0) {
+			capacity = 0;
+			System.out.println("Error: negative capacity. Setting capacity to 0.");
+		}
+		if (lowest > highest) {
+			throw new IllegalArgumentException("Lowest value is larger than highest value");
+		}
+		this.capacity = capacity;
+		this.lowest = lowest;
+		this.highest = highest;
+		base = (long) lowest & ~63L;
+		words = (((long) highest - base) >>> 6) + 1;
+		if (words << 3 > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Range does not fit in a direct buffer");
+		}
+		buffer = ByteBuffer.allocateDirect((int) (words << 3)).order(ByteOrder.nativeOrder());
+	}
+
+	private void check() {
+		if (buffer == null) {
+			throw new IllegalStateException("Set is closed");
+		}
+	}
+
+	private long word(long index) {
+		return buffer.getLong((int) (index << 3));
+	}
+
+	private void setWord(long index, long word) {
+		buffer.putLong((int) (index << 3), word);
+	}
+
+	/**
+	 * Returns word index of another set, or 0 if it has no such word.
+	 */
+	private static long wordOf(OffHeapIntSet set, long index) {
+		return index >= 0 && index < set.words ? set.word(index) : 0;
+	}
+
+	/**
+	 * Test whether the set is empty.
+	 * 
+	 * @return getCount() == 0
+	 */
+	public boolean isEmpty() {
+		check();
+		return count == 0;
+	}
+
+	/**
+	 * Test whether a value is in the set
+	 * 
+	 * @return exists int v in getArray() such that v == value
+	 */
+	public boolean has(int value) {
+		check();
+		if (value < lowest || value > highest) {
+			return false;
+		}
+		long offset = value - base;
+		return (word(offset >>> 6) & (1L << offset)) != 0;
+	}
+
+	/**
+	 * Adds a value to the set.
+	 * 
+	 * @pre getCount() < getCapacity()
+	 * @pre lowest <= value <= highest
+	 * @post has(value)
+	 */
+	public void add(int value) {
+		check();
+		if (value < lowest || value > highest) {
+			System.out.println("Value out of range. Cannot add.");
+			return;
+		} else if (has(value)) {
+			return;
+		} else if (count == capacity) {
+			System.out.println("Max capacity reached. Cannot add.");
+			return;
+		}
+		long offset = value - base;
+		setWord(offset >>> 6, word(offset >>> 6) | (1L << offset));
+		count++;
+	}
+
+	/**
+	 * Removes a value from the set.
+	 * 
+	 * @post !has(value)
+	 */
+	public void remove(int value) {
+		check();
+		if (!has(value)) {
+			return;
+		}
+		long offset = value - base;
+		setWord(offset >>> 6, word(offset >>> 6) & ~(1L << offset));
+		count--;
+	}
+
+	/**
+	 * Returns the intersection of this set and another set, which holds the
+	 * values both sets can hold.
+	 * 
+	 * @param other
+	 *            the set to intersect this set with
+	 * @return the intersection, which has a buffer of its own
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) and other.has(v))
+	 */
+	public OffHeapIntSet intersect(OffHeapIntSet other) {
+		return combine(other, SetOperation.AND);
+	}
+
+	/**
+	 * Returns the union of this set and another set, which holds the values
+	 * either set can hold.
+	 * 
+	 * @param other
+	 *            the set to union this set with
+	 * @return the union, which has a buffer of its own
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) or other.has(v))
+	 */
+	public OffHeapIntSet union(OffHeapIntSet other) {
+		return combine(other, SetOperation.OR);
+	}
+
+	/**
+	 * Returns the difference of this set and another set, which holds the
+	 * values this set can hold.
+	 * 
+	 * @param other
+	 *            the set to subtract from this set
+	 * @return the difference, which has a buffer of its own
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) and !other.has(v))
+	 */
+	public OffHeapIntSet difference(OffHeapIntSet other) {
+		return combine(other, SetOperation.AND_NOT);
+	}
+
+	/**
+	 * Returns the symmetric difference of this set and another set, which
+	 * holds the values either set can hold.
+	 * 
+	 * @param other
+	 *            the set to compare this set with
+	 * @return the symmetric difference, which has a buffer of its own
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) != other.has(v))
+	 */
+	public OffHeapIntSet symmDiff(OffHeapIntSet other) {
+		return combine(other, SetOperation.XOR);
+	}
+
+	/**
+	 * Combines this set with another one a word at a time into a new set. The
+	 * result has the capacity of this set and keeps its smallest values if it
+	 * would otherwise exceed that capacity.
+	 */
+	private OffHeapIntSet combine(OffHeapIntSet other, SetOperation operation) {
+		if (other==null) {
+			throw new NullPointerException("Other set is null");
+		}
+		check();
+		other.check();
+		int low;
+		int high;
+		if (operation == SetOperation.AND) {
+			low = Math.max(lowest, other.lowest);
+			high = Math.min(highest, other.highest);
+			if (low > high) {
+				high = low;
+			}
+		} else if (operation == SetOperation.AND_NOT) {
+			low = lowest;
+			high = highest;
+		} else {
+			low = Math.min(lowest, other.lowest);
+			high = Math.max(highest, other.highest);
+		}
+
+		OffHeapIntSet result = new OffHeapIntSet(capacity, low, high);
+		long leftShift = (base - result.base) >> 6;
+		long rightShift = (other.base - result.base) >> 6;
+		long total = 0;
+		for (long i=0; i<result.words; i++) {
+			long left = wordOf(this, i - leftShift);
+			long right = wordOf(other, i - rightShift);
+			long word;
+			if (operation == SetOperation.AND) {
+				word = left & right;
+			} else if (operation == SetOperation.OR) {
+				word = left | right;
+			} else if (operation == SetOperation.AND_NOT) {
+				word = left & ~right;
+			} else {
+				word = left ^ right;
+			}
+			result.setWord(i, word);
+			total += Long.bitCount(word);
+		}
+		if (total > capacity) {
+			System.out.println("Max capacity reached. Cannot add.");
+			total = result.dropLargest(total - capacity);
+		}
+		result.count = (int) total;
+		return result;
+	}
+
+	/**
+	 * Clears the highest bits that are set, going down from the last word.
+	 * 
+	 * @return the number of bits that are left
+	 */
+	private long dropLargest(long excess) {
+		long left = 0;
+		for (long i=words-1; i>=0 && excess>0; i--) {
+			long word = word(i);
+			while (word != 0 && excess > 0) {
+				word &= ~Long.highestOneBit(word);
+				excess--;
+			}
+			setWord(i, word);
+		}
+		for (long i=0; i<words; i++) {
+			left += Long.bitCount(word(i));
+		}
+		return left;
+	}
+
+	/**
+	 * Passes every element of the set to an action in ascending order.
+	 * 
+	 * @pre action != null
+	 */
+	public void forEach(IntConsumer action) {
+		if (action == null) {
+			throw new NullPointerException("Action is null");
+		}
+		check();
+		for (long i=0; i<words; i++) {
+			long word = word(i);
+			while (word != 0) {
+				action.accept((int) (base + (i << 6) + Long.numberOfTrailingZeros(word)));
+				word &= word - 1;
+			}
+		}
+	}
+
+	/**
+	 * Returns the elements of the set as an ascending array.
+	 * 
+	 * @post return.length == getCount()
+	 */
+	public int[] getArray() {
+		check();
+		final int[] array = new int[count];
+		final int[] n = {0};
+		forEach(value -> array[n[0]++] = value);
+		return array;
+	}
+
+	/**
+	 * Returns an IntSet on the heap with the same elements and capacity.
+	 */
+	public IntSet toIntSet() {
+		int[] array = getArray();
+		return IntSet.ofSorted(capacity, array, array.length);
+	}
+
+	/**
+	 * Returns the number of elements in the set.
+	 */
+	public int getCount() {
+		check();
+		return count;
+	}
+
+	/**
+	 * Returns the maximal number of elements in the set.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Test whether close() has been called.
+	 */
+	public boolean isClosed() {
+		return buffer == null;
+	}
+
+	/**
+	 * Drops the reference to the memory of the set, which the garbage collector
+	 * then reclaims. Closing a set a second time does nothing.
+	 * 
+	 * @post isClosed()
+	 */
+	@Override
+	public void close() {
+		buffer = null;
+	}
+
+	/**
+	 * Returns a string representation of the set, in the same format as
+	 * IntSet.toString().
+	 */
+	@Override
+	public String toString() {
+		return toIntSet().toString();
+	}
+
+}
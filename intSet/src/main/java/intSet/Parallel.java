@@ -0,0 +1,92 @@
+package intSet;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs the independent parts of a set operation on the common ForkJoinPool.
+ * Every part writes to its own range of the output, so the parts never need
+ * to lock anything; they only report a count, which is summed on the way back.
+ */
+final class Parallel {
+
+	/**
+	 * Minimal number of values an operation has to go through before it is
+	 * split into parts. Below this, the operation stays on the calling thread.
+	 */
+	static final long MIN_VALUES = 1 << 20;
+
+	/**
+	 * Number of parts per thread, so that threads that finish early can take
+	 * over parts of threads that are slowed down.
+	 */
+	private static final int PARTS_PER_THREAD = 4;
+
+	private Parallel() {
+	}
+
+	/**
+	 * An action on the indices from up to but excluding to.
+	 */
+	interface RangeAction {
+		long apply(int from, int to);
+	}
+
+	/**
+	 * Test whether an operation going through some number of values is split.
+	 */
+	static boolean worthIt(long values) {
+		return values >= MIN_VALUES && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * Returns the number of parts to split an operation into.
+	 */
+	static int parts() {
+		return PARTS_PER_THREAD * ForkJoinPool.getCommonPoolParallelism();
+	}
+
+	/**
+	 * Applies an action to a range of indices, split into parts of at most
+	 * grain indices that run in parallel, and returns the sum of the results.
+	 *
+	 * @pre grain > 0
+	 */
+	static long sum(int from, int to, int grain, RangeAction action) {
+		if (to - from <= grain) {
+			return action.apply(from, to);
+		}
+		return ForkJoinPool.commonPool().invoke(new SumTask(from, to, grain, action));
+	}
+
+	private static class SumTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int grain;
+		private final RangeAction action;
+
+		SumTask(int from, int to, int grain, RangeAction action) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.action = action;
+		}
+
+		@Override
+		protected Long compute() {
+			if (to - from <= grain) {
+				return action.apply(from, to);
+			}
+			int middle = (from + to) >>> 1;
+			SumTask left = new SumTask(from, middle, grain, action);
+			left.fork();
+			long right = new SumTask(middle, to, grain, action).compute();
+			return left.join() + right;
+		}
+
+	}
+
+}
@@ -0,0 +1,460 @@
+package intSet;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Representation of a finite set of integers that never changes. Adding or
+ * removing a value returns a new set that shares all but one path of its
+ * trie with the old one, so versions are cheap to keep and can be handed to
+ * other threads without copying or locking.
+ * 
+ * The trie has four levels of nodes with up to 64 children each, picked by
+ * successive 6 bit parts of a value, and leaves of 256 bits for its lowest 8
+ * bits. A node only holds the children that are there, in an array next to
+ * a bitmap of which ones those are. Values are flipped in their sign bit
+ * first, so that the trie holds them in ascending order.
+ * 
+ * @invariant getCount() >= 0
+ * @invariant getCount() <= getCapacity()
+ */
+public final class PersistentIntSet {
+
+	private static final int LEVELS = 4;
+	private static final int BITS_PER_LEVEL = 6;
+	private static final int LEAF_BITS = 8;
+	private static final int LEAF_WORDS = (1 << LEAF_BITS) / 64;
+
+	private final int capacity;
+
+	/**
+	 * The root node, or null if the set is empty.
+	 */
+	private final Node root;
+
+	/**
+	 * A node of the trie. Its children are nodes, or leaves on the lowest
+	 * level, which are arrays of LEAF_WORDS words. Neither are ever changed
+	 * once they are part of a set.
+	 */
+	private static final class Node {
+
+		final long bitmap;
+		final Object[] children;
+		final int count;
+
+		Node(long bitmap, Object[] children, int count) {
+			this.bitmap = bitmap;
+			this.children = children;
+			this.count = count;
+		}
+
+		/**
+		 * Returns the child at an index from 0 to 63, or null if there is none.
+		 */
+		Object child(int index) {
+			long bit = 1L << index;
+			if ((bitmap & bit) == 0) {
+				return null;
+			}
+			return children[Long.bitCount(bitmap & (bit - 1))];
+		}
+
+		/**
+		 * Returns a copy of this node with the child at an index replaced,
+		 * or removed if it is null.
+		 */
+		Node with(int index, Object child, int countChange) {
+			long bit = 1L << index;
+			int position = Long.bitCount(bitmap & (bit - 1));
+			Object[] copy;
+			long newBitmap;
+			if ((bitmap & bit) != 0 && child != null) {
+				copy = children.clone();
+				copy[position] = child;
+				newBitmap = bitmap;
+			} else if (child != null) {
+				copy = new Object[children.length + 1];
+				System.arraycopy(children, 0, copy, 0, position);
+				System.arraycopy(children, position, copy, position + 1, children.length - position);
+				copy[position] = child;
+				newBitmap = bitmap | bit;
+			} else {
+				if (children.length == 1) {
+					return null;
+				}
+				copy = new Object[children.length - 1];
+				System.arraycopy(children, 0, copy, 0, position);
+				System.arraycopy(children, position + 1, copy, position, copy.length - position);
+				newBitmap = bitmap & ~bit;
+			}
+			return new Node(newBitmap, copy, count + countChange);
+		}
+
+	}
+
+	private PersistentIntSet(int capacity, Node root) {
+		this.capacity = capacity;
+		this.root = root;
+	}
+
+	/**
+	 * Creates a new set with 0 elements.
+	 * 
+	 * @param capacity
+	 *            the maximal number of elements this set can have
+	 * @pre capacity >= 0
+	 * @post getCount() == 0
+	 * @post getCapacity() == capacity
+	 */
+	public PersistentIntSet(int capacity) {
+		if (capacity < 0) {
+			capacity = 0;
+			System.out.println("Error: negative capacity. Setting capacity to 0.");
+		}
+		this.capacity = capacity;
+		this.root = null;
+	}
+
+	/**
+	 * Creates a set with the elements and the capacity of an IntSet.
+	 * 
+	 * @pre set != null
+	 * @post forall int v: return.has(v) iff set.has(v)
+	 */
+	public static PersistentIntSet of(IntSet set) {
+		final PersistentIntSet[] result = {new PersistentIntSet(set.getCapacity())};
+		set.forEach(value -> result[0] = result[0].with(value));
+		return result[0];
+	}
+
+	private static int key(int value) {
+		return value ^ Integer.MIN_VALUE;
+	}
+
+	private static int index(int key, int level) {
+		return (key >>> (LEAF_BITS + BITS_PER_LEVEL * (LEVELS - 1 - level))) & 63;
+	}
+
+	private static int count(Object child) {
+		if (child instanceof Node) {
+			return ((Node) child).count;
+		}
+		int count = 0;
+		for (long word : (long[]) child) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Test whether the set is empty.
+	 * 
+	 * @return getCount() == 0
+	 */
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	/**
+	 * Test whether a value is in the set
+	 * 
+	 * @return exists int v in getArray() such that v == value
+	 */
+	public boolean has(int value) {
+		int key = key(value);
+		Object child = root;
+		for (int level=0; level<LEVELS && child != null; level++) {
+			child = ((Node) child).child(index(key, level));
+		}
+		return child != null && (((long[]) child)[(key >>> 6) & (LEAF_WORDS - 1)] & (1L << key)) != 0;
+	}
+
+	/**
+	 * Returns a set with a value added to the elements of this set. This set
+	 * is returned if it already has the value or is full.
+	 * 
+	 * @post return.has(value)
+	 * @post forall int v: has(v) implies return.has(v)
+	 */
+	public PersistentIntSet with(int value) {
+		if (has(value)) {
+			return this;
+		} else if (getCount() == capacity) {
+			System.out.println("Max capacity reached. Cannot add.");
+			return this;
+		}
+		return new PersistentIntSet(capacity, (Node) change(root, key(value), 0, true));
+	}
+
+	/**
+	 * Returns a set with a value removed from the elements of this set. This
+	 * set is returned if it does not have the value.
+	 * 
+	 * @post !return.has(value)
+	 * @post forall int v: (has(v) and v != value) implies return.has(v)
+	 */
+	public PersistentIntSet without(int value) {
+		if (!has(value)) {
+			return this;
+		}
+		return new PersistentIntSet(capacity, (Node) change(root, key(value), 0, false));
+	}
+
+	/**
+	 * Returns a copy of the path to a key with the key added or removed. The
+	 * key must not be in the subtrie when adding and must be in it when removing.
+	 * 
+	 * @return the new subtrie, or null if it is empty
+	 */
+	private static Object change(Object child, int key, int level, boolean add) {
+		if (level == LEVELS) {
+			long[] words = child == null ? new long[LEAF_WORDS] : ((long[]) child).clone();
+			words[(key >>> 6) & (LEAF_WORDS - 1)] ^= 1L << key;
+			return add || count(words) > 0 ? words : null;
+		}
+		Node node = child == null ? new Node(0, new Object[0], 0) : (Node) child;
+		int index = index(key, level);
+		Object changed = change(node.child(index), key, level + 1, add);
+		return node.with(index, changed, add ? 1 : -1);
+	}
+
+	/**
+	 * Returns the intersection of this set and another set. Parts of the trie
+	 * that both sets share are shared with the result as well.
+	 * 
+	 * @param other
+	 *            the set to intersect this set with
+	 * @return the intersection
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) and other.has(v))
+	 */
+	public PersistentIntSet intersect(PersistentIntSet other) {
+		return combine(other, SetOperation.AND);
+	}
+
+	/**
+	 * Returns the union of this set and another set. Parts of the trie that
+	 * are only in one of the sets, or that both share, are shared with the
+	 * result.
+	 * 
+	 * @param other
+	 *            the set to union this set with
+	 * @return the union
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) or other.has(v))
+	 */
+	public PersistentIntSet union(PersistentIntSet other) {
+		return combine(other, SetOperation.OR);
+	}
+
+	/**
+	 * Returns the difference of this set and another set. Parts of the trie
+	 * that are only in this set are shared with the result.
+	 * 
+	 * @param other
+	 *            the set to subtract from this set
+	 * @return the difference
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) and !other.has(v))
+	 */
+	public PersistentIntSet difference(PersistentIntSet other) {
+		return combine(other, SetOperation.AND_NOT);
+	}
+
+	/**
+	 * Returns the symmetric difference of this set and another set. Parts of
+	 * the trie that are only in one of the sets are shared with the result.
+	 * 
+	 * @param other
+	 *            the set to compare this set with
+	 * @return the symmetric difference
+	 * @pre other != null
+	 * @post forall int v: return.has(v) iff (has(v) != other.has(v))
+	 */
+	public PersistentIntSet symmDiff(PersistentIntSet other) {
+		return combine(other, SetOperation.XOR);
+	}
+
+	/**
+	 * Combines this set with another one. The result has the capacity of this
+	 * set and keeps its smallest values if it would otherwise exceed that capacity.
+	 */
+	private PersistentIntSet combine(PersistentIntSet other, SetOperation operation) {
+		if (other==null) {
+			throw new NullPointerException("Other set is null");
+		}
+		Node combined = (Node) combine(root, other.root, 0, operation);
+		if (combined == root) {
+			return this;
+		} else if (combined == other.root && other.capacity == capacity) {
+			return other;
+		}
+		PersistentIntSet result = new PersistentIntSet(capacity, combined);
+		if (result.getCount() > capacity) {
+			System.out.println("Max capacity reached. Cannot add.");
+			int[] values = result.getArray();
+			for (int i=capacity; i<values.length; i++) {
+				result = result.without(values[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Combines two subtries on the same level. A subtrie that can be taken
+	 * over as it is, is returned itself rather than copied.
+	 * 
+	 * @return the combined subtrie, or null if it is empty
+	 */
+	private static Object combine(Object left, Object right, int level, SetOperation operation) {
+		if (left == right) {
+			return operation.keepsBoth() ? left : null;
+		} else if (left == null) {
+			return operation.keepsRight() ? right : null;
+		} else if (right == null) {
+			return operation.keepsLeft() ? left : null;
+		} else if (level == LEVELS) {
+			return combineLeaves((long[]) left, (long[]) right, operation);
+		}
+
+		Node l = (Node) left;
+		Node r = (Node) right;
+		long candidates = l.bitmap | r.bitmap;
+		Object[] children = new Object[Long.bitCount(candidates)];
+		long bitmap = 0;
+		int count = 0;
+		int n = 0;
+		boolean sameAsLeft = true;
+		boolean sameAsRight = true;
+		for (long rest=candidates; rest!=0; rest&=rest - 1) {
+			int index = Long.numberOfTrailingZeros(rest);
+			Object leftChild = l.child(index);
+			Object rightChild = r.child(index);
+			Object child = combine(leftChild, rightChild, level + 1, operation);
+			sameAsLeft &= child == leftChild;
+			sameAsRight &= child == rightChild;
+			if (child != null) {
+				children[n++] = child;
+				bitmap |= 1L << index;
+				count += count(child);
+			}
+		}
+		if (sameAsLeft) {
+			return left;
+		} else if (sameAsRight) {
+			return right;
+		} else if (n == 0) {
+			return null;
+		} else if (n < children.length) {
+			Object[] trimmed = new Object[n];
+			System.arraycopy(children, 0, trimmed, 0, n);
+			children = trimmed;
+		}
+		return new Node(bitmap, children, count);
+	}
+
+	private static Object combineLeaves(long[] left, long[] right, SetOperation operation) {
+		long[] words = new long[LEAF_WORDS];
+		boolean empty = true;
+		for (int i=0; i<LEAF_WORDS; i++) {
+			if (operation == SetOperation.AND) {
+				words[i] = left[i] & right[i];
+			} else if (operation == SetOperation.OR) {
+				words[i] = left[i] | right[i];
+			} else if (operation == SetOperation.AND_NOT) {
+				words[i] = left[i] & ~right[i];
+			} else {
+				words[i] = left[i] ^ right[i];
+			}
+			empty &= words[i] == 0;
+		}
+		if (empty) {
+			return null;
+		} else if (Arrays.equals(words, left)) {
+			return left;
+		} else if (Arrays.equals(words, right)) {
+			return right;
+		}
+		return words;
+	}
+
+	/**
+	 * Passes every element of the set to an action in ascending order.
+	 * 
+	 * @pre action != null
+	 */
+	public void forEach(IntConsumer action) {
+		if (action == null) {
+			throw new NullPointerException("Action is null");
+		}
+		if (root != null) {
+			forEach(root, 0, 0, action);
+		}
+	}
+
+	private static void forEach(Object child, int prefix, int level, IntConsumer action) {
+		if (level == LEVELS) {
+			long[] words = (long[]) child;
+			for (int i=0; i<LEAF_WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					action.accept((prefix | (i << 6) | Long.numberOfTrailingZeros(word)) ^ Integer.MIN_VALUE);
+					word &= word - 1;
+				}
+			}
+			return;
+		}
+		Node node = (Node) child;
+		int shift = LEAF_BITS + BITS_PER_LEVEL * (LEVELS - 1 - level);
+		int n = 0;
+		for (long rest=node.bitmap; rest!=0; rest&=rest - 1) {
+			int index = Long.numberOfTrailingZeros(rest);
+			forEach(node.children[n++], prefix | (index << shift), level + 1, action);
+		}
+	}
+
+	/**
+	 * Returns the elements of the set as an ascending array.
+	 * 
+	 * @post return.length == getCount()
+	 */
+	public int[] getArray() {
+		final int[] array = new int[getCount()];
+		final int[] n = {0};
+		forEach(value -> array[n[0]++] = value);
+		return array;
+	}
+
+	/**
+	 * Returns an IntSet with the same elements and capacity, which can be changed.
+	 */
+	public IntSet toIntSet() {
+		int[] array = getArray();
+		return IntSet.ofSorted(capacity, array, array.length);
+	}
+
+	/**
+	 * Returns the number of elements in the set.
+	 */
+	public int getCount() {
+		return root == null ? 0 : root.count;
+	}
+
+	/**
+	 * Returns the maximal number of elements in the set.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns a string representation of the set, in the same format as
+	 * IntSet.toString().
+	 */
+	@Override
+	public String toString() {
+		return toIntSet().toString();
+	}
+
+}
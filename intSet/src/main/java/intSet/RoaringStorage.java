@@ -0,0 +1,435 @@
+package intSet;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Storage that splits the values by their high 16 bits into chunks and keeps
+ * every chunk in the container that suits its density best. This handles
+ * values spread over the whole int range that are clustered, for which a
+ * single bitmap would be too large and a list too slow.
+ *
+ * The chunks are kept ascending by key. A key is the high 16 bits of the
+ * values with the sign bit flipped, so that keys compare unsigned in the
+ * same order as the signed values they stand for.
+ */
+class RoaringStorage extends Storage {
+
+	private char[] keys;
+	private Container[] containers;
+	private int chunks;
+	private int count;
+
+	/**
+	 * The rank summary: entry i is the number of values in the chunks before
+	 * chunk i, up to a final entry that equals count. It is built on the first
+	 * rank or select query and dropped when the values change.
+	 */
+	private int[] ranks;
+
+	RoaringStorage() {
+		keys = new char[4];
+		containers = new Container[4];
+	}
+
+	/**
+	 * Creates a storage holding the first length values of an array.
+	 *
+	 * @pre the first length values are strictly ascending
+	 */
+	static RoaringStorage ofSorted(int[] values, int length) {
+		RoaringStorage storage = new RoaringStorage();
+		int from = 0;
+		while (from < length) {
+			char key = key(values[from]);
+			int to = from + 1;
+			while (to < length && key(values[to]) == key) {
+				to++;
+			}
+			storage.append(key, Container.ofSorted(values, from, to));
+			from = to;
+		}
+		return storage;
+	}
+
+	/**
+	 * Returns the key of the chunk a value belongs to.
+	 */
+	private static char key(int value) {
+		return (char) ((value >>> 16) ^ 0x8000);
+	}
+
+	/**
+	 * Returns the high 16 bits shared by the values of a chunk.
+	 */
+	private static int high(char key) {
+		return (key ^ 0x8000) << 16;
+	}
+
+	@Override
+	IntSet.Representation representation() {
+		return IntSet.Representation.ROARING;
+	}
+
+	@Override
+	boolean has(int value) {
+		int index = Arrays.binarySearch(keys, 0, chunks, key(value));
+		return index >= 0 && containers[index].has((char) value);
+	}
+
+	@Override
+	boolean add(int value) {
+		char key = key(value);
+		int index = Arrays.binarySearch(keys, 0, chunks, key);
+		if (index < 0) {
+			index = -index - 1;
+			insert(index, key, new ArrayContainer(new char[] {(char) value}, 1));
+			count++;
+			ranks = null;
+			return true;
+		}
+		Container container = containers[index];
+		int before = container.cardinality();
+		containers[index] = container.add((char) value);
+		if (containers[index].cardinality() == before) {
+			return false;
+		}
+		count++;
+		ranks = null;
+		return true;
+	}
+
+	@Override
+	boolean remove(int value) {
+		int index = Arrays.binarySearch(keys, 0, chunks, key(value));
+		if (index < 0) {
+			return false;
+		}
+		Container container = containers[index];
+		int before = container.cardinality();
+		container = container.remove((char) value);
+		if (container.cardinality() == before) {
+			return false;
+		}
+		count--;
+		ranks = null;
+		if (container.cardinality() == 0) {
+			System.arraycopy(keys, index + 1, keys, index, chunks - index - 1);
+			System.arraycopy(containers, index + 1, containers, index, chunks - index - 1);
+			containers[--chunks] = null;
+		} else {
+			containers[index] = container;
+		}
+		return true;
+	}
+
+	@Override
+	int size() {
+		return count;
+	}
+
+	@Override
+	int[] toArray() {
+		int[] array = new int[count];
+		copyTo(array);
+		return array;
+	}
+
+	@Override
+	void copyTo(int[] out) {
+		int position = 0;
+		for (int i=0; i<chunks; i++) {
+			position = containers[i].fill(high(keys[i]), out, position);
+		}
+	}
+
+	@Override
+	int[] sortedArray() {
+		return toArray();
+	}
+
+	/**
+	 * Adds the cardinalities of all chunks before the one of a value, as held
+	 * by the rank summary, to the rank within that chunk.
+	 */
+	@Override
+	int rank(int value) {
+		int index = Arrays.binarySearch(keys, 0, chunks, key(value));
+		if (index < 0) {
+			return summary()[-index - 1];
+		}
+		return summary()[index] + containers[index].rank((char) value);
+	}
+
+	/**
+	 * Finds the chunk that holds the value by a binary search of the rank
+	 * summary, and then the value within its container.
+	 */
+	@Override
+	int select(int k) {
+		int[] summary = summary();
+		int low = 0;
+		int high = chunks;
+		while (high - low > 1) {
+			int middle = (low + high) >>> 1;
+			if (summary[middle] <= k) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
+		return high(keys[low]) | containers[low].select(k - summary[low]);
+	}
+
+	private int[] summary() {
+		if (ranks == null) {
+			int[] summary = new int[chunks + 1];
+			for (int i=0; i<chunks; i++) {
+				summary[i + 1] = summary[i] + containers[i].cardinality();
+			}
+			ranks = summary;
+		}
+		return ranks;
+	}
+
+	@Override
+	void forEach(IntConsumer action) {
+		for (int i=0; i<chunks; i++) {
+			containers[i].forEach(high(keys[i]), action);
+		}
+	}
+
+	@Override
+	void removeFrom(Storage target) {
+		for (int i=0; i<chunks; i++) {
+			containers[i].removeFrom(high(keys[i]), target);
+		}
+	}
+
+	@Override
+	Spliterator.OfInt spliterator() {
+		return new RoaringSpliterator(this, 0, chunks, count);
+	}
+
+	/**
+	 * Spliterator over a range of chunks, which splits in halves. To pass on
+	 * values one at a time, it copies the values of the current chunk to a
+	 * buffer that is reused for every chunk.
+	 */
+	private static class RoaringSpliterator implements Spliterator.OfInt {
+
+		private final RoaringStorage storage;
+		private int next;
+		private final int end;
+		private int[] buffer;
+		private int position;
+		private int buffered;
+
+		/**
+		 * The exact number of values left, or -1 once the spliterator has been split.
+		 */
+		private int exact;
+
+		RoaringSpliterator(RoaringStorage storage, int next, int end, int exact) {
+			this.storage = storage;
+			this.next = next;
+			this.end = end;
+			this.exact = exact;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (position == buffered) {
+				if (next == end) {
+					return false;
+				}
+				Container container = storage.containers[next];
+				if (buffer == null || buffer.length < container.cardinality()) {
+					buffer = new int[Math.max(container.cardinality(), Container.MAX_ARRAY)];
+				}
+				buffered = container.fill(high(storage.keys[next++]), buffer, 0);
+				position = 0;
+			}
+			if (exact > 0) {
+				exact--;
+			}
+			action.accept(buffer[position++]);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			while (position < buffered) {
+				action.accept(buffer[position++]);
+			}
+			for (; next<end; next++) {
+				storage.containers[next].forEach(high(storage.keys[next]), action);
+			}
+			exact = exact < 0 ? -1 : 0;
+		}
+
+		/**
+		 * Splits off the first half of the chunks that are left, together with
+		 * the buffered values of the current chunk.
+		 */
+		@Override
+		public Spliterator.OfInt trySplit() {
+			int middle = (next + end) >>> 1;
+			if (middle == next) {
+				return null;
+			}
+			RoaringSpliterator prefix = new RoaringSpliterator(storage, next, middle, -1);
+			prefix.buffer = buffer;
+			prefix.position = position;
+			prefix.buffered = buffered;
+			buffer = null;
+			position = 0;
+			buffered = 0;
+			next = middle;
+			exact = -1;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			if (exact >= 0) {
+				return exact;
+			}
+			long size = buffered - position;
+			for (int i=next; i<end; i++) {
+				size += storage.containers[i].cardinality();
+			}
+			return size;
+		}
+
+		@Override
+		public int characteristics() {
+			int characteristics = ORDERED | SORTED | DISTINCT | NONNULL;
+			return exact >= 0 ? characteristics | SIZED : characteristics;
+		}
+
+		@Override
+		public Comparator<? super Integer> getComparator() {
+			return null;
+		}
+
+	}
+
+	/**
+	 * Combines two storages chunk by chunk. Chunks in only one of them are
+	 * copied if the operation keeps them, chunks in both are combined
+	 * container by container. The keys are merged first; the containers of
+	 * the result are then computed independently, in parallel if there are
+	 * enough values to go through.
+	 */
+	static RoaringStorage combine(RoaringStorage left, RoaringStorage right, SetOperation operation) {
+		int maxChunks = left.chunks + right.chunks;
+		final char[] keys = new char[Math.max(4, maxChunks)];
+		final int[] leftIndices = new int[maxChunks];
+		final int[] rightIndices = new int[maxChunks];
+		int slots = 0;
+		int i = 0;
+		int j = 0;
+		while (i < left.chunks || j < right.chunks) {
+			if (j == right.chunks || (i < left.chunks && left.keys[i] < right.keys[j])) {
+				if (operation.keepsLeft()) {
+					keys[slots] = left.keys[i];
+					leftIndices[slots] = i;
+					rightIndices[slots++] = -1;
+				}
+				i++;
+			} else if (i == left.chunks || right.keys[j] < left.keys[i]) {
+				if (operation.keepsRight()) {
+					keys[slots] = right.keys[j];
+					leftIndices[slots] = -1;
+					rightIndices[slots++] = j;
+				}
+				j++;
+			} else {
+				keys[slots] = left.keys[i];
+				leftIndices[slots] = i;
+				rightIndices[slots++] = j;
+				i++;
+				j++;
+			}
+		}
+
+		final Container[] containers = new Container[keys.length];
+		int grain = Parallel.worthIt((long) left.count + right.count)
+				? Math.max(1, slots / Parallel.parts())
+				: Math.max(1, slots);
+		long count = Parallel.sum(0, slots, grain, (from, to) -> {
+			long cardinality = 0;
+			for (int slot=from; slot<to; slot++) {
+				Container container;
+				if (rightIndices[slot] < 0) {
+					container = left.containers[leftIndices[slot]].copy();
+				} else if (leftIndices[slot] < 0) {
+					container = right.containers[rightIndices[slot]].copy();
+				} else {
+					container = Container.combine(left.containers[leftIndices[slot]],
+							right.containers[rightIndices[slot]], operation);
+				}
+				containers[slot] = container;
+				cardinality += container == null ? 0 : container.cardinality();
+			}
+			return cardinality;
+		});
+
+		RoaringStorage result = new RoaringStorage();
+		result.keys = keys;
+		result.containers = containers;
+		for (int slot=0; slot<slots; slot++) {
+			if (containers[slot] != null) {
+				keys[result.chunks] = keys[slot];
+				containers[result.chunks++] = containers[slot];
+			}
+		}
+		Arrays.fill(containers, result.chunks, slots, null);
+		result.count = (int) count;
+		return result;
+	}
+
+	/**
+	 * Returns the number of values in both storages, counted container by
+	 * container for the chunks they share.
+	 */
+	static int intersectionCount(RoaringStorage left, RoaringStorage right) {
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < left.chunks && j < right.chunks) {
+			if (left.keys[i] < right.keys[j]) {
+				i++;
+			} else if (left.keys[i] > right.keys[j]) {
+				j++;
+			} else {
+				count += Container.intersectionCount(left.containers[i++], right.containers[j++]);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds a chunk after all chunks with a smaller key.
+	 */
+	private void append(char key, Container container) {
+		insert(chunks, key, container);
+		count += container.cardinality();
+	}
+
+	private void insert(int index, char key, Container container) {
+		if (chunks == keys.length) {
+			keys = Arrays.copyOf(keys, 2 * chunks);
+			containers = Arrays.copyOf(containers, 2 * chunks);
+		}
+		System.arraycopy(keys, index, keys, index + 1, chunks - index);
+		System.arraycopy(containers, index, containers, index + 1, chunks - index);
+		keys[index] = key;
+		containers[index] = container;
+		chunks++;
+	}
+
+}
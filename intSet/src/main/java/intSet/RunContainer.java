@@ -0,0 +1,254 @@
+package intSet;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Container that keeps the low values of a chunk as runs of consecutive
+ * values. Run i holds the values starts[i] up to and including
+ * starts[i] + lengths[i], and the runs are ascending and never touch.
+ *
+ * @invariant runs <= MAX_RUNS
+ */
+class RunContainer extends Container {
+
+	/**
+	 * Maximal number of runs. Beyond this, a bitmap takes less memory.
+	 */
+	static final int MAX_RUNS = BitmapContainer.BYTES / 4;
+
+	private char[] starts;
+	private char[] lengths;
+	private int runs;
+	private int cardinality;
+
+	private RunContainer(char[] starts, char[] lengths, int runs, int cardinality) {
+		this.starts = starts;
+		this.lengths = lengths;
+		this.runs = runs;
+		this.cardinality = cardinality;
+	}
+
+	/**
+	 * Returns the number of bytes a run container with some number of runs takes.
+	 */
+	static int bytes(int runs) {
+		return 4 * runs;
+	}
+
+	/**
+	 * Returns a container that holds the whole chunk.
+	 */
+	static RunContainer full() {
+		return new RunContainer(new char[] {0}, new char[] {(char) 0xFFFF}, 1, 1 << 16);
+	}
+
+	/**
+	 * @pre values[from..to) is ascending, lies in one chunk and has the given number of runs
+	 */
+	static RunContainer ofSorted(int[] values, int from, int to, int runs) {
+		char[] starts = new char[runs];
+		char[] lengths = new char[runs];
+		int run = -1;
+		for (int i=from; i<to; i++) {
+			if (i == from || values[i] != values[i - 1] + 1) {
+				starts[++run] = (char) values[i];
+			} else {
+				lengths[run]++;
+			}
+		}
+		return new RunContainer(starts, lengths, runs, to - from);
+	}
+
+	/**
+	 * @pre words has the given number of runs and cardinality bits set
+	 */
+	static RunContainer ofWords(long[] words, int runs, int cardinality) {
+		char[] starts = new char[runs];
+		char[] lengths = new char[runs];
+		int run = -1;
+		int previous = -2;
+		for (int i=0; i<words.length; i++) {
+			long word = words[i];
+			while (word != 0) {
+				int low = (i << 6) + Long.numberOfTrailingZeros(word);
+				if (low != previous + 1) {
+					starts[++run] = (char) low;
+				} else {
+					lengths[run]++;
+				}
+				previous = low;
+				word &= word - 1;
+			}
+		}
+		return new RunContainer(starts, lengths, runs, cardinality);
+	}
+
+	/**
+	 * Returns the index of the last run that starts at or before a low value,
+	 * or -1 if there is none.
+	 */
+	private int find(char low) {
+		int index = Arrays.binarySearch(starts, 0, runs, low);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	/**
+	 * Returns the last value of a run.
+	 */
+	private int end(int run) {
+		return starts[run] + lengths[run];
+	}
+
+	@Override
+	boolean has(char low) {
+		int run = find(low);
+		return run >= 0 && low <= end(run);
+	}
+
+	@Override
+	Container add(char low) {
+		int run = find(low);
+		if (run >= 0 && low <= end(run)) {
+			return this;
+		}
+		cardinality++;
+		boolean joinsPrevious = run >= 0 && end(run) + 1 == low;
+		boolean joinsNext = run + 1 < runs && starts[run + 1] == low + 1;
+		if (joinsPrevious && joinsNext) {
+			lengths[run] = (char) (end(run + 1) - starts[run]);
+			removeRun(run + 1);
+		} else if (joinsPrevious) {
+			lengths[run]++;
+		} else if (joinsNext) {
+			starts[run + 1]--;
+			lengths[run + 1]++;
+		} else {
+			insertRun(run + 1, low, 0);
+			if (runs > MAX_RUNS) {
+				return ofWords(toWords(), cardinality);
+			}
+		}
+		return this;
+	}
+
+	@Override
+	Container remove(char low) {
+		int run = find(low);
+		if (run < 0 || low > end(run)) {
+			return this;
+		}
+		cardinality--;
+		int end = end(run);
+		if (lengths[run] == 0) {
+			removeRun(run);
+		} else if (low == starts[run]) {
+			starts[run]++;
+			lengths[run]--;
+		} else if (low == end) {
+			lengths[run]--;
+		} else {
+			lengths[run] = (char) (low - 1 - starts[run]);
+			insertRun(run + 1, low + 1, end - low - 1);
+			if (runs > MAX_RUNS) {
+				return ofWords(toWords(), cardinality);
+			}
+		}
+		return this;
+	}
+
+	private void insertRun(int index, int start, int length) {
+		if (runs == starts.length) {
+			starts = Arrays.copyOf(starts, Math.max(4, 2 * runs));
+			lengths = Arrays.copyOf(lengths, starts.length);
+		}
+		System.arraycopy(starts, index, starts, index + 1, runs - index);
+		System.arraycopy(lengths, index, lengths, index + 1, runs - index);
+		starts[index] = (char) start;
+		lengths[index] = (char) length;
+		runs++;
+	}
+
+	private void removeRun(int index) {
+		System.arraycopy(starts, index + 1, starts, index, runs - index - 1);
+		System.arraycopy(lengths, index + 1, lengths, index, runs - index - 1);
+		runs--;
+	}
+
+	@Override
+	int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	int rank(char low) {
+		int run = find(low);
+		int rank = 0;
+		for (int i=0; i<run; i++) {
+			rank += lengths[i] + 1;
+		}
+		return run < 0 ? 0 : rank + Math.min(low, end(run)) - starts[run] + 1;
+	}
+
+	@Override
+	char select(int k) {
+		int run = 0;
+		while (k > lengths[run]) {
+			k -= lengths[run++] + 1;
+		}
+		return (char) (starts[run] + k);
+	}
+
+	@Override
+	int fill(int high, int[] out, int position) {
+		for (int i=0; i<runs; i++) {
+			for (int low=starts[i]; low<=end(i); low++) {
+				out[position++] = high | low;
+			}
+		}
+		return position;
+	}
+
+	@Override
+	void forEach(int high, IntConsumer action) {
+		for (int i=0; i<runs; i++) {
+			for (int low=starts[i]; low<=end(i); low++) {
+				action.accept(high | low);
+			}
+		}
+	}
+
+	@Override
+	void removeFrom(int high, Storage target) {
+		for (int i=0; i<runs; i++) {
+			for (int low=starts[i]; low<=end(i); low++) {
+				target.remove(high | low);
+			}
+		}
+	}
+
+	@Override
+	void setBits(long[] words) {
+		for (int i=0; i<runs; i++) {
+			int first = starts[i];
+			int last = end(i);
+			int firstWord = first >>> 6;
+			int lastWord = last >>> 6;
+			if (firstWord == lastWord) {
+				words[firstWord] |= (-1L >>> (63 - (last - first))) << first;
+			} else {
+				words[firstWord] |= -1L << first;
+				for (int w=firstWord+1; w<lastWord; w++) {
+					words[w] = -1L;
+				}
+				words[lastWord] |= -1L >>> (63 - (last & 63));
+			}
+		}
+	}
+
+	@Override
+	Container copy() {
+		return new RunContainer(Arrays.copyOf(starts, runs), Arrays.copyOf(lengths, runs), runs, cardinality);
+	}
+
+}
@@ -0,0 +1,43 @@
+package intSet;
+
+/**
+ * The binary set operations supported by IntSet.
+ */
+enum SetOperation {
+
+	AND, OR, AND_NOT, XOR;
+
+	/**
+	 * Test whether a value in only the left operand is in the result.
+	 */
+	boolean keepsLeft() {
+		return this != AND;
+	}
+
+	/**
+	 * Test whether a value in only the right operand is in the result.
+	 */
+	boolean keepsRight() {
+		return this == OR || this == XOR;
+	}
+
+	/**
+	 * Test whether a value in both operands is in the result.
+	 */
+	boolean keepsBoth() {
+		return this == AND || this == OR;
+	}
+
+	/**
+	 * Returns the maximal size of the result for operands of the given sizes.
+	 */
+	int maxSize(int left, int right) {
+		if (this == AND) {
+			return Math.min(left, right);
+		} else if (this == AND_NOT) {
+			return left;
+		}
+		return (int) Math.min((long) left + right, Integer.MAX_VALUE);
+	}
+
+}
@@ -0,0 +1,144 @@
+package intSet;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+
+/**
+ * Storage that keeps the values in an ascending array. Lookups are binary
+ * searches and the values are always at hand in order, which suits sets
+ * that are read and intersected far more often than they are changed.
+ * Adding or removing a value shifts the values after it.
+ */
+class SortedArrayStorage extends Storage {
+
+	private int[] values;
+	private int size;
+
+	SortedArrayStorage(int initialCapacity) {
+		values = new int[Math.max(initialCapacity, 4)];
+	}
+
+	/**
+	 * Creates a storage that takes over the first length values of an array.
+	 *
+	 * @pre the first length values are strictly ascending
+	 */
+	SortedArrayStorage(int[] values, int length) {
+		this.values = values;
+		this.size = length;
+	}
+
+	@Override
+	IntSet.Representation representation() {
+		return IntSet.Representation.SORTED;
+	}
+
+	@Override
+	boolean has(int value) {
+		int index = Kernels.lowerBound(values, 0, size, value);
+		return index < size && values[index] == value;
+	}
+
+	@Override
+	boolean add(int value) {
+		int index = Arrays.binarySearch(values, 0, size, value);
+		if (index >= 0) {
+			return false;
+		}
+		index = -index - 1;
+		if (size == values.length) {
+			values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+		}
+		System.arraycopy(values, index, values, index + 1, size - index);
+		values[index] = value;
+		size++;
+		return true;
+	}
+
+	@Override
+	boolean remove(int value) {
+		int index = Arrays.binarySearch(values, 0, size, value);
+		if (index < 0) {
+			return false;
+		}
+		System.arraycopy(values, index + 1, values, index, size - index - 1);
+		size--;
+		return true;
+	}
+
+	/**
+	 * Moves the values that are kept to the front, which keeps them in order.
+	 */
+	@Override
+	void filter(Storage other, boolean keep) {
+		int kept = 0;
+		for (int i=0; i<size; i++) {
+			if (other.has(values[i]) == keep) {
+				values[kept++] = values[i];
+			}
+		}
+		size = kept;
+	}
+
+	@Override
+	void removeFrom(Storage target) {
+		for (int i=0; i<size; i++) {
+			target.remove(values[i]);
+		}
+	}
+
+	@Override
+	int size() {
+		return size;
+	}
+
+	@Override
+	int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	@Override
+	void copyTo(int[] out) {
+		System.arraycopy(values, 0, out, 0, size);
+	}
+
+	@Override
+	int[] sortedArray() {
+		return toArray();
+	}
+
+	@Override
+	int rank(int value) {
+		int index = Kernels.lowerBound(values, 0, size, value);
+		return index < size && values[index] == value ? index + 1 : index;
+	}
+
+	@Override
+	int select(int k) {
+		return values[k];
+	}
+
+	@Override
+	void forEach(IntConsumer action) {
+		for (int i=0; i<size; i++) {
+			action.accept(values[i]);
+		}
+	}
+
+	@Override
+	Spliterator.OfInt spliterator() {
+		return Spliterators.spliterator(values, 0, size,
+				Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	/**
+	 * Returns the array holding the values, which is only ascending up to size().
+	 * The array is shared with the storage and must not be changed.
+	 */
+	int[] values() {
+		return values;
+	}
+
+}
@@ -0,0 +1,243 @@
+package intSet;
+
+/**
+ * Set operations on strictly ascending int arrays. Every operation is a single
+ * merge over both inputs that writes the result straight into an output array.
+ * If one input is much shorter than the other, the merge gallops through the
+ * longer one instead of stepping through it value by value. Merges of large
+ * inputs of similar length are split by value into ranges that are merged
+ * in parallel.
+ */
+final class SortedArrays {
+
+	/**
+	 * Minimal ratio between the lengths of both inputs before merges gallop.
+	 */
+	static final int GALLOP_RATIO = 32;
+
+	private SortedArrays() {
+	}
+
+	/**
+	 * Returns the length of the output array needed to combine arrays of the
+	 * given lengths. Merges that run in parallel write every part at the
+	 * position it would have if no values were dropped, so they need room
+	 * for all values of both inputs.
+	 */
+	static int outputLength(SetOperation operation, int leftLength, int rightLength) {
+		if (!gallops(leftLength, rightLength) && Parallel.worthIt((long) leftLength + rightLength)) {
+			return (int) Math.min((long) leftLength + rightLength, Integer.MAX_VALUE);
+		}
+		return operation.maxSize(leftLength, rightLength);
+	}
+
+	private static boolean gallops(int leftLength, int rightLength) {
+		return (long) leftLength * GALLOP_RATIO < rightLength || (long) rightLength * GALLOP_RATIO < leftLength;
+	}
+
+	/**
+	 * Combines the first leftLength values of left with the first rightLength
+	 * values of right and writes the result to out.
+	 *
+	 * @pre out.length >= outputLength(operation, leftLength, rightLength)
+	 * @return the number of values written to out
+	 */
+	static int combine(final int[] left, int leftLength, final int[] right, int rightLength,
+			final SetOperation operation, final int[] out) {
+		if ((long) leftLength * GALLOP_RATIO < rightLength) {
+			return gallop(left, leftLength, right, rightLength,
+					operation.keepsLeft(), operation.keepsRight(), operation.keepsBoth(), out);
+		} else if ((long) rightLength * GALLOP_RATIO < leftLength) {
+			return gallop(right, rightLength, left, leftLength,
+					operation.keepsRight(), operation.keepsLeft(), operation.keepsBoth(), out);
+		} else if (!Parallel.worthIt((long) leftLength + rightLength)) {
+			return merge(left, 0, leftLength, right, 0, rightLength, operation, out, 0);
+		}
+
+		// Split the values into ranges at values of the longer input, so that
+		// every range can be merged on its own.
+		int parts = Parallel.parts();
+		final int[] leftStarts = new int[parts + 1];
+		final int[] rightStarts = new int[parts + 1];
+		final int[] lengths = new int[parts];
+		int[] pivots = leftLength >= rightLength ? left : right;
+		int pivotCount = Math.max(leftLength, rightLength);
+		for (int p=1; p<parts; p++) {
+			int pivot = pivots[(int) ((long) p * pivotCount / parts)];
+			leftStarts[p] = lowerBound(left, leftLength, pivot);
+			rightStarts[p] = lowerBound(right, rightLength, pivot);
+		}
+		leftStarts[parts] = leftLength;
+		rightStarts[parts] = rightLength;
+		Parallel.sum(0, parts, 1, (from, to) -> {
+			for (int p=from; p<to; p++) {
+				lengths[p] = merge(left, leftStarts[p], leftStarts[p + 1], right, rightStarts[p], rightStarts[p + 1],
+						operation, out, leftStarts[p] + rightStarts[p]);
+			}
+			return 0;
+		});
+
+		int n = 0;
+		for (int p=0; p<parts; p++) {
+			System.arraycopy(out, leftStarts[p] + rightStarts[p], out, n, lengths[p]);
+			n += lengths[p];
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the number of values in both the first leftLength values of
+	 * left and the first rightLength values of right, without writing them
+	 * anywhere. Like combine, this gallops if one input is much shorter.
+	 */
+	static int intersectionCount(int[] left, int leftLength, int[] right, int rightLength) {
+		if (leftLength > rightLength) {
+			return intersectionCount(right, rightLength, left, leftLength);
+		}
+		int count = 0;
+		if ((long) leftLength * GALLOP_RATIO < rightLength) {
+			int position = 0;
+			for (int i=0; i<leftLength; i++) {
+				position = search(right, position, rightLength, left[i]);
+				if (position < rightLength && right[position] == left[i]) {
+					count++;
+				}
+			}
+			return count;
+		}
+		int i = 0;
+		int j = 0;
+		while (i < leftLength && j < rightLength) {
+			if (left[i] < right[j]) {
+				i++;
+			} else if (left[i] > right[j]) {
+				j++;
+			} else {
+				count++;
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the first index where values holds at least value, or length if there is none.
+	 */
+	private static int lowerBound(int[] values, int length, int value) {
+		return Kernels.lowerBound(values, 0, length, value);
+	}
+
+	/**
+	 * Merges left[leftFrom..leftTo) with right[rightFrom..rightTo) and writes
+	 * the result to out from position outFrom on.
+	 *
+	 * @return the number of values written to out
+	 */
+	private static int merge(int[] left, int leftFrom, int leftTo, int[] right, int rightFrom, int rightTo,
+			SetOperation operation, int[] out, int outFrom) {
+		boolean keepLeft = operation.keepsLeft();
+		boolean keepRight = operation.keepsRight();
+		boolean keepBoth = operation.keepsBoth();
+		int i = leftFrom;
+		int j = rightFrom;
+		int n = outFrom;
+		while (i < leftTo && j < rightTo) {
+			int l = left[i];
+			int r = right[j];
+			if (l < r) {
+				if (keepLeft) {
+					out[n++] = l;
+				}
+				i++;
+			} else if (l > r) {
+				if (keepRight) {
+					out[n++] = r;
+				}
+				j++;
+			} else {
+				if (keepBoth) {
+					out[n++] = l;
+				}
+				i++;
+				j++;
+			}
+		}
+		if (keepLeft) {
+			System.arraycopy(left, i, out, n, leftTo - i);
+			n += leftTo - i;
+		}
+		if (keepRight) {
+			System.arraycopy(right, j, out, n, rightTo - j);
+			n += rightTo - j;
+		}
+		return n - outFrom;
+	}
+
+	/**
+	 * Combines a short array with a long one. For every value of the short
+	 * array, the long array is searched from where the previous search ended,
+	 * first with steps that double in size and then binary, so that the
+	 * values skipped in between are copied at once or not looked at at all.
+	 *
+	 * @param keepShort whether values in only the short array are kept
+	 * @param keepLong whether values in only the long array are kept
+	 * @param keepBoth whether values in both arrays are kept
+	 * @return the number of values written to out
+	 */
+	private static int gallop(int[] shortValues, int shortLength, int[] longValues, int longLength,
+			boolean keepShort, boolean keepLong, boolean keepBoth, int[] out) {
+		int n = 0;
+		int position = 0;
+		for (int i=0; i<shortLength; i++) {
+			int value = shortValues[i];
+			int found = search(longValues, position, longLength, value);
+			if (keepLong) {
+				System.arraycopy(longValues, position, out, n, found - position);
+				n += found - position;
+			}
+			if (found < longLength && longValues[found] == value) {
+				if (keepBoth) {
+					out[n++] = value;
+				}
+				position = found + 1;
+			} else {
+				if (keepShort) {
+					out[n++] = value;
+				}
+				position = found;
+			}
+		}
+		if (keepLong) {
+			System.arraycopy(longValues, position, out, n, longLength - position);
+			n += longLength - position;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the first index from from on where values holds at least value,
+	 * or to if there is none.
+	 */
+	static int search(int[] values, int from, int to, int value) {
+		int step = 1;
+		int low = from;
+		int high = from;
+		while (high < to && values[high] < value) {
+			low = high + 1;
+			high = from + step;
+			step <<= 1;
+		}
+		high = Math.min(high, to);
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+}
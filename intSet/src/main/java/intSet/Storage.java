@@ -0,0 +1,153 @@
+package intSet;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Internal representation of the values held by an IntSet. The set itself
+ * takes care of the capacity; a storage only keeps track of its members.
+ *
+ * @invariant size() >= 0
+ */
+abstract class Storage {
+
+	/**
+	 * The stored values in ascending order, kept for rank and select queries
+	 * on storages that do not hold their values in order, or null if the
+	 * values changed since.
+	 */
+	private int[] snapshot;
+
+	/**
+	 * Returns the kind of this storage.
+	 */
+	abstract IntSet.Representation representation();
+
+	/**
+	 * Test whether a value is stored.
+	 */
+	abstract boolean has(int value);
+
+	/**
+	 * Stores a value.
+	 *
+	 * @return true if the value was not stored before
+	 * @post has(value)
+	 */
+	abstract boolean add(int value);
+
+	/**
+	 * Removes a value.
+	 *
+	 * @return true if the value was stored before
+	 * @post !has(value)
+	 */
+	abstract boolean remove(int value);
+
+	/**
+	 * Returns the number of stored values.
+	 */
+	abstract int size();
+
+	/**
+	 * Returns the stored values as a new array.
+	 *
+	 * @post return.length == size()
+	 */
+	abstract int[] toArray();
+
+	/**
+	 * Writes the stored values to the start of an array, in the same order
+	 * as toArray().
+	 *
+	 * @pre out.length >= size()
+	 */
+	void copyTo(final int[] out) {
+		final int[] n = {0};
+		forEach(value -> out[n[0]++] = value);
+	}
+
+	/**
+	 * Passes every stored value to an action, in the same order as toArray().
+	 */
+	abstract void forEach(IntConsumer action);
+
+	/**
+	 * Returns a spliterator over the stored values, in the same order as
+	 * toArray(). The storage must not change while the spliterator is in use.
+	 */
+	abstract Spliterator.OfInt spliterator();
+
+	/**
+	 * Returns the stored values as a new array in ascending order.
+	 *
+	 * @post return.length == size()
+	 */
+	int[] sortedArray() {
+		int[] array = toArray();
+		Arrays.sort(array);
+		return array;
+	}
+
+	/**
+	 * Removes every stored value that is stored in another storage, if keep
+	 * is false, or that is not, if keep is true. By default, this tests a
+	 * copy of the values; storages that can drop values while going through
+	 * them do so without copying.
+	 *
+	 * @post forall int v: has(v) implies (this@pre.has(v) and other.has(v) == keep)
+	 */
+	void filter(Storage other, boolean keep) {
+		for (int value : toArray()) {
+			if (other.has(value) != keep) {
+				remove(value);
+			}
+		}
+	}
+
+	/**
+	 * Removes the stored values from another storage, going through them
+	 * without an action object.
+	 */
+	abstract void removeFrom(Storage target);
+
+	/**
+	 * Returns the number of stored values that are at most value. By default,
+	 * this searches an ascending snapshot of the values, which is taken once
+	 * and kept until the values change. Taking the snapshot costs O(n log n),
+	 * so when changes and queries alternate the default is slower than a
+	 * linear scan; only storages that override rank and select answer in
+	 * sub-linear time regardless of changes.
+	 */
+	int rank(int value) {
+		int[] sorted = snapshot();
+		int index = Arrays.binarySearch(sorted, value);
+		return index >= 0 ? index + 1 : -index - 1;
+	}
+
+	/**
+	 * Returns the stored value that has k smaller stored values.
+	 *
+	 * @pre 0 <= k < size()
+	 */
+	int select(int k) {
+		return snapshot()[k];
+	}
+
+	private int[] snapshot() {
+		if (snapshot == null) {
+			snapshot = sortedArray();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Drops the snapshot used by rank and select. Storages that use it call
+	 * this whenever their values change.
+	 */
+	void changed() {
+		snapshot = null;
+	}
+
+}
@@ -0,0 +1,53 @@
+package intSet;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BloomFilterTest {
+
+    @Test
+    public void noFalseNegatives() {
+
+        IntSet set = new IntSet(100000);
+        set.addAll(IntStream.range(0, 100000).map(i -> i * 7919 - 300000000));
+        BloomFilter filter = BloomFilter.of(set, 0.01);
+
+        assertEquals(100000, filter.getCount());
+        set.forEach(value -> assertTrue(filter.mightHave(value)));
+    }
+
+    @Test
+    public void falsePositiveRate() {
+
+        for (double rate : new double[] {0.1, 0.01, 0.001}) {
+            BloomFilter filter = new BloomFilter(100000, rate);
+            for (int i = 0; i < 100000; i++) {
+                filter.add(2 * i);
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < 100000; i++) {
+                if (filter.mightHave(2 * i + 1)) {
+                    falsePositives++;
+                }
+            }
+            assertTrue(falsePositives < 100000 * rate * 1.5);
+            assertTrue(filter.expectedFalsePositiveRate() < rate * 1.5);
+        }
+    }
+
+    @Test
+    public void emptyFilter() {
+
+        BloomFilter filter = BloomFilter.of(new IntSet(10), 0.05);
+        assertEquals(0, filter.getCount());
+        assertFalse(filter.mightHave(0));
+        assertFalse(filter.mightHave(-1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRate() {
+        new BloomFilter(10, 1.0);
+    }
+}
@@ -0,0 +1,70 @@
+package intSet;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CardinalitySketchTest {
+
+    @Test
+    public void exactBelowThreshold() {
+
+        CardinalitySketch sketch = new CardinalitySketch(12, 100);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add(i % 100);
+        }
+        assertTrue(sketch.isExact());
+        assertEquals(100, sketch.estimate());
+
+        sketch.add(100);
+        assertFalse(sketch.isExact());
+        assertEquals(101, sketch.estimate(), 5);
+    }
+
+    @Test
+    public void estimate() {
+
+        CardinalitySketch sketch = new CardinalitySketch(14);
+        for (int i = 0; i < 1000000; i++) {
+            sketch.add(i * 31 + 17);
+            sketch.add(i * 31 + 17);
+        }
+        assertEquals(1000000, sketch.estimate(), 1000000 * 0.03);
+    }
+
+    @Test
+    public void merge() {
+
+        CardinalitySketch evens = new CardinalitySketch(12);
+        CardinalitySketch triples = new CardinalitySketch(12);
+        for (int i = 0; i < 300000; i++) {
+            evens.add(2 * i);
+            triples.add(3 * i);
+        }
+        evens.merge(triples);
+        assertEquals(500000, evens.estimate(), 500000 * 0.06);
+
+        CardinalitySketch small = new CardinalitySketch(12);
+        small.add(1);
+        small.add(3);
+        CardinalitySketch other = new CardinalitySketch(12);
+        other.add(3);
+        small.merge(other);
+        assertTrue(small.isExact());
+        assertEquals(2, small.estimate());
+    }
+
+    @Test
+    public void ofIntSet() {
+
+        IntSet set = new IntSet(10);
+        set.add(-5);
+        set.add(5);
+        assertEquals(2, CardinalitySketch.of(set, 10).estimate());
+        assertEquals(0, new CardinalitySketch(4).estimate());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void differentPrecisions() {
+        new CardinalitySketch(10).merge(new CardinalitySketch(11));
+    }
+}
@@ -0,0 +1,91 @@
+package intSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConcurrentIntSetTest {
+
+    @Test
+    public void addHasRemove() {
+
+        ConcurrentIntSet set = new ConcurrentIntSet(10, -100, 100);
+        assertTrue(set.isEmpty());
+
+        set.add(-100);
+        set.add(100);
+        set.add(7);
+        set.add(7);
+        set.add(101);
+        assertEquals(3, set.getCount());
+        assertTrue(set.has(-100));
+        assertTrue(set.has(100));
+        assertFalse(set.has(101));
+        assertFalse(set.has(-101));
+
+        set.remove(7);
+        set.remove(8);
+        assertFalse(set.has(7));
+        assertEquals(2, set.getCount());
+        assertEquals("{-100, 100}", set.toString());
+        assertArrayEquals(new int[] {-100, 100}, set.getArray());
+    }
+
+    @Test
+    public void fullRange() {
+
+        ConcurrentIntSet set = new ConcurrentIntSet(3, Integer.MIN_VALUE + 1, Integer.MIN_VALUE + 200);
+        set.add(Integer.MIN_VALUE + 1);
+        set.add(Integer.MIN_VALUE + 200);
+        set.add(Integer.MIN_VALUE);
+        assertTrue(set.has(Integer.MIN_VALUE + 200));
+        assertFalse(set.has(Integer.MIN_VALUE));
+        assertEquals(2, set.getCount());
+    }
+
+    @Test
+    public void concurrentAdds() throws InterruptedException {
+
+        final ConcurrentIntSet set = new ConcurrentIntSet(5000, 0, 99999);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int start = t * 1000;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    set.add((start + i) % 10000);
+                    if (i % 3 == 0) {
+                        set.remove((start + i + 500) % 10000);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int[] array = set.getArray();
+        assertEquals(array.length, set.getCount());
+        assertTrue(set.getCount() <= set.getCapacity());
+        for (int i = 1; i < array.length; i++) {
+            assertTrue(array[i - 1] < array[i]);
+        }
+    }
+
+    @Test
+    public void snapshot() {
+
+        ConcurrentIntSet set = new ConcurrentIntSet(100, 0, 1000);
+        set.add(3);
+        set.add(500);
+        IntSet snapshot = set.snapshot();
+        set.add(4);
+
+        assertEquals(100, snapshot.getCapacity());
+        assertTrue(snapshot.has(500));
+        assertFalse(snapshot.has(4));
+    }
+}
@@ -1,3 +1,15 @@
+package intSet;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -260,4 +272,555 @@ public class IntSetTest {
 
         assertTrue(set.isEmpty());
     }
+
+    @Test
+    public void denseSet() {
+
+        IntSet intSet = new IntSet(1000);
+        for (int i = -200; i < 600; i += 2) {
+            intSet.add(i);
+        }
+        assertTrue(intSet.getCount() == 400);
+        assertTrue(intSet.has(-200));
+        assertTrue(intSet.has(598));
+        assertFalse(intSet.has(-199));
+        assertFalse(intSet.has(600));
+
+        intSet.remove(0);
+        intSet.remove(1);
+        assertFalse(intSet.has(0));
+        assertTrue(intSet.getCount() == 399);
+
+        intSet.add(Integer.MAX_VALUE);
+        intSet.add(Integer.MIN_VALUE);
+        assertTrue(intSet.has(Integer.MAX_VALUE));
+        assertTrue(intSet.has(Integer.MIN_VALUE));
+        assertTrue(intSet.has(2));
+        assertTrue(intSet.getCount() == 401);
+        assertTrue(intSet.getArray().length == 401);
+    }
+
+    @Test
+    public void denseAlgebra() {
+
+        IntSet evens = new IntSet(2000);
+        IntSet triples = new IntSet(2000);
+        for (int i = 0; i < 1000; i++) {
+            evens.add(2 * i);
+            triples.add(3 * i + 64);
+        }
+
+        IntSet intersect = evens.intersect(triples);
+        IntSet union = evens.union(triples);
+        IntSet diff = evens.difference(triples);
+        IntSet symm = evens.symmDiff(triples);
+        for (int v = -10; v < 3200; v++) {
+            boolean inEvens = evens.has(v);
+            boolean inTriples = triples.has(v);
+            assertEquals(inEvens && inTriples, intersect.has(v));
+            assertEquals(inEvens || inTriples, union.has(v));
+            assertEquals(inEvens && !inTriples, diff.has(v));
+            assertEquals(inEvens != inTriples, symm.has(v));
+        }
+        assertEquals(intersect.getCount() + symm.getCount(), union.getCount());
+        assertEquals(union.getCount(), union.getArray().length);
+
+        IntSet sparse = new IntSet(10);
+        sparse.add(4);
+        sparse.add(-7);
+        sparse.add(1000000);
+        assertEquals("{4}", sparse.intersect(evens).toString());
+        assertEquals("{-7, 1000000}", sparse.difference(evens).toString());
+    }
+
+    @Test
+    public void algebraRespectsCapacity() {
+
+        IntSet intSet1 = new IntSet(3);
+        IntSet intSet2 = new IntSet(3);
+        intSet1.add(1);
+        intSet1.add(2);
+        intSet1.add(3);
+        intSet2.add(4);
+        intSet2.add(5);
+
+        IntSet union = intSet1.union(intSet2);
+        assertEquals(3, union.getCapacity());
+        assertEquals(3, union.getCount());
+    }
+
+    @Test
+    public void clusteredSet() {
+
+        IntSet intSet = new IntSet(200000);
+        IntSet other = new IntSet(200000);
+        for (int i = 0; i < 70000; i++) {
+            intSet.add(Integer.MIN_VALUE + i);
+            intSet.add(Integer.MAX_VALUE - 3 * i);
+            other.add(Integer.MAX_VALUE - i);
+        }
+        for (int i = 0; i < 10; i++) {
+            intSet.add(i * 1000003);
+        }
+        assertEquals(140010, intSet.getCount());
+        assertTrue(intSet.has(Integer.MIN_VALUE + 69999));
+        assertFalse(intSet.has(Integer.MIN_VALUE + 70000));
+        assertTrue(intSet.has(Integer.MAX_VALUE - 3));
+        assertFalse(intSet.has(Integer.MAX_VALUE - 4));
+
+        intSet.remove(Integer.MIN_VALUE + 5);
+        intSet.remove(Integer.MAX_VALUE - 3);
+        intSet.remove(Integer.MAX_VALUE - 4);
+        assertFalse(intSet.has(Integer.MIN_VALUE + 5));
+        assertTrue(intSet.has(Integer.MIN_VALUE + 6));
+        assertEquals(140008, intSet.getCount());
+
+        IntSet intersect = intSet.intersect(other);
+        assertEquals(23333, intersect.getCount());
+        assertTrue(intersect.has(Integer.MAX_VALUE));
+        assertFalse(intersect.has(Integer.MAX_VALUE - 3));
+        assertEquals(140008 + 70000 - 2 * 23333, intSet.symmDiff(other).getCount());
+        assertEquals(140008 - 23333, intSet.difference(other).getCount());
+
+        int[] array = intSet.getArray();
+        for (int i = 1; i < array.length; i++) {
+            assertTrue(array[i - 1] < array[i]);
+        }
+    }
+
+    @Test
+    public void hashSet() {
+
+        IntSet intSet = new IntSet(1000, IntSet.Representation.HASH);
+        for (int i = 0; i < 1200; i++) {
+            intSet.add(i * 7919 - 500000);
+        }
+        intSet.add(0);
+        assertEquals(1000, intSet.getCount());
+        assertTrue(intSet.has(-500000));
+        assertTrue(intSet.has(999 * 7919 - 500000));
+        assertFalse(intSet.has(1000 * 7919 - 500000));
+        assertFalse(intSet.has(0));
+
+        for (int i = 0; i < 1000; i += 2) {
+            intSet.remove(i * 7919 - 500000);
+        }
+        intSet.add(0);
+        assertEquals(501, intSet.getCount());
+        assertTrue(intSet.has(0));
+        assertTrue(intSet.has(7919 - 500000));
+        assertFalse(intSet.has(2 * 7919 - 500000));
+
+        IntSet other = new IntSet(10);
+        other.add(0);
+        other.add(7919 - 500000);
+        other.add(5);
+        IntSet intersect = intSet.intersect(other);
+        assertEquals(2, intersect.getCount());
+        assertTrue(intersect.has(0));
+        assertEquals(1, other.difference(intSet).getCount());
+        assertEquals(1000, intersect.getCapacity());
+    }
+
+    @Test
+    public void sortedSet() {
+
+        IntSet small = new IntSet(10, IntSet.Representation.SORTED);
+        IntSet large = new IntSet(100000, IntSet.Representation.SORTED);
+        small.add(9);
+        small.add(-3);
+        small.add(50001);
+        small.add(4);
+        for (int i = 0; i < 100000; i += 3) {
+            large.add(i);
+        }
+        assertEquals("{-3, 4, 9, 50001}", small.toString());
+        assertTrue(large.has(99999));
+        assertFalse(large.has(1));
+
+        assertEquals("{9, 50001}", small.intersect(large).toString());
+        assertEquals("{-3, 4}", small.difference(large).toString());
+        IntSet union = large.union(small);
+        assertEquals(33334 + 2, union.getCount());
+        assertTrue(union.has(-3));
+        assertTrue(union.has(4));
+        assertEquals(33334 - 2, large.difference(small).getCount());
+        assertEquals(33334, large.symmDiff(small).getCount());
+
+        int[] array = union.getArray();
+        for (int i = 1; i < array.length; i++) {
+            assertTrue(array[i - 1] < array[i]);
+        }
+    }
+
+    @Test
+    public void largeAlgebra() {
+
+        IntSet multiples = new IntSet(2000000, IntSet.Representation.SORTED);
+        IntSet spread = new IntSet(2000000);
+        for (int i = 0; i < 1000000; i++) {
+            multiples.add(6 * i);
+            spread.add(4 * i);
+        }
+
+        assertEquals(333334, multiples.intersect(spread).getCount());
+        assertEquals(1666666, multiples.union(spread).getCount());
+        assertEquals(666666, multiples.difference(spread).getCount());
+        assertEquals(1333332, multiples.symmDiff(spread).getCount());
+        assertEquals(666666, spread.difference(multiples).getCount());
+
+        IntSet intersect = spread.intersect(multiples);
+        assertTrue(intersect.has(12 * 1000));
+        assertFalse(intersect.has(6 * 1001));
+    }
+
+    @Test
+    public void iteration() {
+
+        IntSet intSet = new IntSet(200000);
+        for (int i = 0; i < 100000; i++) {
+            intSet.add(i * 37);
+        }
+        final long[] sum = {0};
+        intSet.forEach(value -> sum[0] += value);
+        assertEquals(37L * 99999 * 100000 / 2, sum[0]);
+
+        PrimitiveIterator.OfInt iterator = intSet.iterator();
+        int count = 0;
+        int previous = -1;
+        while (iterator.hasNext()) {
+            int value = iterator.nextInt();
+            assertTrue(value > previous);
+            previous = value;
+            count++;
+        }
+        assertEquals(100000, count);
+
+        assertArrayEquals(intSet.getArray(), intSet.stream().toArray());
+        assertEquals(sum[0], intSet.stream().parallel().asLongStream().sum());
+        assertEquals(100000, intSet.stream().parallel().filter(intSet::has).count());
+
+        IntSet sparse = new IntSet(100, IntSet.Representation.BITMAP);
+        for (int i = 0; i < 100; i++) {
+            sparse.add(i * 100000);
+        }
+        Spliterator.OfInt root = sparse.stream().spliterator();
+        Spliterator.OfInt prefix = root.trySplit();
+        assertNotNull(prefix);
+        assertFalse(root.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(root.estimateSize() + prefix.estimateSize() <= 100);
+        assertEquals(100, sparse.stream().parallel().count());
+        assertEquals(100000L * 99 * 100 / 2, sparse.stream().parallel().asLongStream().sum());
+
+        IntSet small = new IntSet(10);
+        small.add(3);
+        small.add(1);
+        assertArrayEquals(new int[] {3, 1}, small.stream().toArray());
+        assertFalse(new IntSet(10).iterator().hasNext());
+    }
+
+    @Test
+    public void rankAndSelect() {
+
+        for (IntSet.Representation representation : IntSet.Representation.values()) {
+            IntSet intSet = new IntSet(100000, representation);
+            for (int i = 0; i < 10000; i++) {
+                intSet.add(i);
+                intSet.add(70000 + 3 * i);
+                intSet.add(1 << 20 | i * 17 % 65536);
+            }
+            intSet.add(-5);
+            int[] array = intSet.getArray();
+            Arrays.sort(array);
+
+            assertEquals(-5, intSet.min());
+            assertEquals(array[array.length - 1], intSet.max());
+            for (int k = 0; k < array.length; k += 97) {
+                assertEquals(array[k], intSet.select(k));
+                assertEquals(k + 1, intSet.rank(array[k]));
+                assertEquals(k, intSet.rank(array[k] - 1));
+            }
+            assertEquals(0, intSet.rank(Integer.MIN_VALUE));
+            assertEquals(array.length, intSet.rank(Integer.MAX_VALUE));
+            assertEquals(10000, intSet.countInRange(0, 9999));
+            assertEquals(10000, intSet.countInRange(70000, 100000));
+            assertEquals(array.length, intSet.countInRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+            assertEquals(0, intSet.countInRange(5, 4));
+            assertEquals(70003, intSet.nextSetValue(70001).getAsInt());
+            assertEquals(70000, intSet.nextSetValue(10000).getAsInt());
+            assertEquals(9999, intSet.previousSetValue(69999).getAsInt());
+            assertEquals(-5, intSet.previousSetValue(-1).getAsInt());
+            assertFalse(intSet.previousSetValue(-6).isPresent());
+            assertFalse(intSet.nextSetValue(array[array.length - 1] + 1).isPresent());
+
+            intSet.remove(-5);
+            intSet.add(-7);
+            assertEquals(-7, intSet.min());
+            assertEquals(1, intSet.rank(-7));
+            assertEquals(0, intSet.countInRange(-6, -1));
+        }
+
+        IntSet empty = new IntSet(10);
+        assertEquals(0, empty.rank(0));
+        assertFalse(empty.nextSetValue(0).isPresent());
+        try {
+            empty.min();
+            fail();
+        } catch (NoSuchElementException e) {
+        }
+    }
+
+    @Test
+    public void bulk() {
+
+        for (IntSet.Representation representation : IntSet.Representation.values()) {
+            IntSet intSet = new IntSet(10, representation);
+            intSet.add(50);
+            assertEquals(0, intSet.addAll(new int[] {7, 3, 7, 50, -2}));
+            assertArrayEquals(new int[] {-2, 3, 7, 50}, sorted(intSet.getArray()));
+
+            assertEquals(2, intSet.addAll(IntStream.rangeClosed(100, 107)));
+            assertEquals(10, intSet.getCount());
+            assertTrue(intSet.has(105));
+            assertFalse(intSet.has(106));
+
+            assertEquals(2, intSet.removeAll(new int[] {3, 3, 100, 1000}));
+            assertEquals(0, intSet.removeAll(IntStream.of(3)));
+            assertEquals(3, intSet.retainAll(IntStream.range(0, 104)));
+            assertArrayEquals(new int[] {7, 50, 101, 102, 103}, sorted(intSet.getArray()));
+
+            IntSet other = new IntSet(10);
+            other.addAll(new int[] {1, 2, 7});
+            assertEquals(0, intSet.addAll(other));
+            assertEquals(7, intSet.getCount());
+            assertEquals(3, intSet.removeAll(other));
+            assertEquals(1, intSet.retainAll(new int[] {101, 102, 103, 104}));
+            assertArrayEquals(new int[] {101, 102, 103}, sorted(intSet.getArray()));
+        }
+
+        IntSet large = new IntSet(1500000);
+        assertEquals(0, large.addAll(IntStream.range(0, 1000000).map(i -> 3 * i)));
+        assertEquals(1000000, large.getCount());
+        assertEquals(500000, large.addAll(IntStream.range(0, 1000000).map(i -> 3 * i + 1)));
+        assertEquals(1500000, large.getCount());
+        assertTrue(large.has(1 + 3 * 499999));
+        assertFalse(large.has(1 + 3 * 500000));
+        assertEquals(1000, large.removeAll(IntStream.range(0, 1000).map(i -> 3 * i)));
+        assertEquals(1499000, large.getCount());
+        assertFalse(large.has(0));
+        assertTrue(large.has(3000));
+    }
+
+    @Test
+    public void inPlaceAlgebra() {
+
+        Random random = new Random(14);
+        for (IntSet.Representation left : IntSet.Representation.values()) {
+            for (IntSet.Representation right : IntSet.Representation.values()) {
+                IntSet a = new IntSet(5000, left);
+                IntSet b = new IntSet(5000, right);
+                for (int i = 0; i < 2000; i++) {
+                    a.add(random.nextInt(6000));
+                    b.add(random.nextInt(6000));
+                }
+                b.add(100000);
+
+                assertEquals(a.intersect(b).getCount(), a.intersectionCount(b));
+                assertEquals(a.union(b).getCount(), a.unionCount(b));
+                assertEquals(a.difference(b).getCount(), a.differenceCount(b));
+                assertEquals(a.symmDiff(b).getCount(), a.symmDiffCount(b));
+
+                IntSet[] expected = {a.intersect(b), a.union(b), a.difference(b), a.symmDiff(b)};
+                IntSet[] actual = {a.intersect(a), a.intersect(a), a.intersect(a), a.intersect(a)};
+                actual[0].andInPlace(b);
+                actual[1].orInPlace(b);
+                actual[2].andNotInPlace(b);
+                actual[3].xorInPlace(b);
+                for (int i = 0; i < 4; i++) {
+                    assertArrayEquals(sorted(expected[i].getArray()), sorted(actual[i].getArray()));
+                    assertEquals(expected[i].getCount(), actual[i].getCount());
+                }
+            }
+        }
+
+        IntSet negative = new IntSet(10, IntSet.Representation.BITMAP);
+        negative.addAll(new int[] {Integer.MIN_VALUE + 3, Integer.MIN_VALUE});
+        assertArrayEquals(new int[] {Integer.MIN_VALUE, Integer.MIN_VALUE + 3}, negative.getArray());
+
+        IntSet bitmap = new IntSet(100000, IntSet.Representation.BITMAP);
+        IntSet few = new IntSet(10, IntSet.Representation.BITMAP);
+        bitmap.addAll(IntStream.range(0, 50000));
+        few.addAll(new int[] {5, 70000});
+        bitmap.andNotInPlace(few);
+        assertEquals(49999, bitmap.getCount());
+        assertEquals(4, bitmap.select(4));
+        assertEquals(6, bitmap.select(5));
+        IntSet inner = new IntSet(10, IntSet.Representation.BITMAP);
+        inner.addAll(new int[] {5, 40000, 49999});
+        bitmap.orInPlace(inner);
+        assertEquals(50000, bitmap.getCount());
+        bitmap.xorInPlace(inner);
+        assertEquals(49997, bitmap.getCount());
+        assertFalse(bitmap.has(40000));
+        bitmap.orInPlace(few);
+        assertEquals(49999, bitmap.getCount());
+        bitmap.andInPlace(few);
+        assertArrayEquals(new int[] {5, 70000}, bitmap.getArray());
+        few.xorInPlace(few);
+        assertTrue(few.isEmpty());
+
+        IntSet full = new IntSet(3);
+        IntSet other = new IntSet(3);
+        full.addAll(new int[] {1, 5, 9});
+        other.addAll(new int[] {2, 5, 7});
+        full.orInPlace(other);
+        assertArrayEquals(new int[] {1, 2, 5}, sorted(full.getArray()));
+        assertEquals(4L, full.unionCount(other));
+    }
+
+    @Test
+    public void streamingOutput() throws IOException {
+
+        IntSet extremes = new IntSet(5);
+        extremes.add(Integer.MIN_VALUE);
+        extremes.add(0);
+        extremes.add(Integer.MAX_VALUE);
+        extremes.add(-10);
+        assertEquals("{-2147483648, 0, 2147483647, -10}", extremes.toString());
+        assertEquals("x{-2147483648, 0, 2147483647, -10}", extremes.appendTo(new StringBuilder("x")).toString());
+
+        IntSet large = new IntSet(100000);
+        large.addAll(IntStream.range(-50000, 50000).map(i -> 7 * i));
+        StringWriter writer = new StringWriter();
+        large.writeTo(writer);
+        String expected = large.stream().mapToObj(Integer::toString).collect(Collectors.joining(", ", "{", "}"));
+        assertEquals(expected, writer.toString());
+        assertEquals(expected, large.toString());
+        assertEquals("{}", new IntSet(10).toString());
+        IntSet single = new IntSet(1);
+        single.add(Integer.MIN_VALUE);
+        assertEquals("{-2147483648}", single.toString());
+        assertEquals(expected, large.appendTo(new StringBuffer()).toString());
+
+        int[] dest = new int[100001];
+        assertEquals(100000, large.getArray(dest));
+        assertArrayEquals(large.getArray(), Arrays.copyOf(dest, 100000));
+        try {
+            large.getArray(new int[10]);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+
+        Appendable failing = new Appendable() {
+            public Appendable append(CharSequence csq) throws IOException {
+                throw new IOException("full");
+            }
+            public Appendable append(CharSequence csq, int start, int end) throws IOException {
+                throw new IOException("full");
+            }
+            public Appendable append(char c) throws IOException {
+                throw new IOException("full");
+            }
+        };
+        try {
+            large.appendTo(failing);
+            fail();
+        } catch (IOException e) {
+            assertEquals("full", e.getMessage());
+        }
+    }
+
+    @Test
+    public void adaptiveRepresentation() {
+
+        IntSet intSet = new IntSet(1000000);
+        for (int i = 0; i < 10; i++) {
+            intSet.add(2 * i);
+        }
+        assertEquals(IntSet.Representation.LIST, intSet.representation());
+        for (int i = 0; i < 1000; i++) {
+            intSet.add(2 * i);
+        }
+        assertEquals(IntSet.Representation.BITMAP, intSet.representation());
+        for (int i = 20; i < 1000; i++) {
+            intSet.remove(2 * i);
+        }
+        assertEquals(IntSet.Representation.LIST, intSet.representation());
+        assertEquals(20, intSet.getCount());
+        assertTrue(intSet.has(38));
+        assertFalse(intSet.has(40));
+
+        IntSet scattered = new IntSet(1000);
+        for (int i = 0; i < 70; i++) {
+            scattered.add(i * 10000019);
+        }
+        assertEquals(IntSet.Representation.SORTED, scattered.representation());
+        for (int i = 70; i < 100; i++) {
+            scattered.add(i * 10000019);
+        }
+        assertEquals(IntSet.Representation.HASH, scattered.representation());
+        assertEquals(100, scattered.getCount());
+        assertTrue(scattered.has(99 * 10000019));
+        assertEquals(10000019, scattered.select(1));
+        assertEquals(IntSet.Representation.SORTED, scattered.representation());
+        for (int i = 100; i < 140; i++) {
+            scattered.add(i * 10000019);
+        }
+        assertEquals(IntSet.Representation.SORTED, scattered.representation());
+        assertEquals(140, scattered.rank(139 * 10000019));
+
+        IntSet runs = new IntSet(1000000);
+        for (int i = 0; i < 100000; i++) {
+            runs.add(i);
+        }
+        assertEquals(IntSet.Representation.ROARING, runs.representation());
+        assertEquals(100000, runs.getCount());
+        assertEquals(99999, runs.max());
+
+        IntSet dense = new IntSet(1000000);
+        IntSet most = new IntSet(1000000);
+        for (int i = 0; i < 1000; i++) {
+            dense.add(2 * i);
+            if (i >= 20) {
+                most.add(2 * i);
+            }
+        }
+        assertEquals(IntSet.Representation.BITMAP, dense.representation());
+        dense.andNotInPlace(most);
+        assertEquals(IntSet.Representation.LIST, dense.representation());
+        assertEquals(20, dense.getCount());
+        assertTrue(dense.has(38));
+
+        IntSet fixed = new IntSet(1000, IntSet.Representation.LIST);
+        for (int i = 0; i < 500; i++) {
+            fixed.add(i);
+        }
+        assertEquals(IntSet.Representation.LIST, fixed.representation());
+    }
+
+    @Test
+    public void largeArrayContainers() {
+
+        IntSet evens = new IntSet(10000, IntSet.Representation.ROARING);
+        IntSet odds = new IntSet(10000, IntSet.Representation.ROARING);
+        for (int i = 0; i < 3000; i++) {
+            evens.add(2 * i);
+            odds.add(2 * i + 1);
+        }
+        IntSet union = evens.union(odds);
+        IntSet symm = evens.symmDiff(odds);
+        assertEquals(6000, union.getCount());
+        assertEquals(6000, symm.getCount());
+        union.add(65000);
+        symm.add(65000);
+        assertEquals(6001, union.getCount());
+        assertTrue(symm.has(65000));
+        assertTrue(symm.has(5999));
+        assertEquals(6001, symm.rank(65000));
+    }
+
+    private static int[] sorted(int[] array) {
+        Arrays.sort(array);
+        return array;
+    }
 }
@@ -0,0 +1,124 @@
+package intSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class MappedIntSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedIntSet saveAndMap(IntSet set) throws IOException {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            set.save(out);
+        }
+        return MappedIntSet.map(file.toPath());
+    }
+
+    private IntSet saveAndLoad(IntSet set) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        set.save(out);
+        return IntSet.load(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void sparseSet() throws IOException {
+
+        IntSet set = new IntSet(1000);
+        for (int i = 0; i < 500; i++) {
+            set.add(i * i * 1013 - 1000000);
+        }
+        set.add(Integer.MIN_VALUE);
+        set.add(Integer.MAX_VALUE);
+
+        MappedIntSet mapped = saveAndMap(set);
+        assertEquals(502, mapped.getCount());
+        assertEquals(1000, mapped.getCapacity());
+        for (int i = 0; i < 500; i++) {
+            assertTrue(mapped.has(i * i * 1013 - 1000000));
+            assertFalse(mapped.has(i * i * 1013 - 999999));
+        }
+        assertTrue(mapped.has(Integer.MIN_VALUE));
+        assertTrue(mapped.has(Integer.MAX_VALUE));
+        assertFalse(mapped.has(Integer.MAX_VALUE - 1));
+
+        IntSet loaded = saveAndLoad(set);
+        int[] values = set.getArray();
+        Arrays.sort(values);
+        assertArrayEquals(values, loaded.getArray());
+        assertEquals(loaded.toString(), mapped.toString());
+    }
+
+    @Test
+    public void denseSet() throws IOException {
+
+        IntSet set = new IntSet(100000);
+        for (int i = 0; i < 50000; i++) {
+            set.add(2 * i + 7);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        set.save(out);
+        assertTrue(out.size() < 100000 / 8 + 100);
+
+        MappedIntSet mapped = saveAndMap(set);
+        assertEquals(50000, mapped.getCount());
+        assertTrue(mapped.has(7));
+        assertTrue(mapped.has(99997));
+        assertFalse(mapped.has(8));
+        assertFalse(mapped.has(5));
+        assertArrayEquals(set.getArray(), mapped.getArray());
+        assertArrayEquals(set.getArray(), saveAndLoad(set).getArray());
+    }
+
+    @Test
+    public void emptySet() throws IOException {
+
+        IntSet set = new IntSet(5);
+        MappedIntSet mapped = saveAndMap(set);
+        assertTrue(mapped.isEmpty());
+        assertFalse(mapped.has(0));
+        assertEquals("{}", mapped.toString());
+        assertTrue(saveAndLoad(set).isEmpty());
+        assertEquals(5, saveAndLoad(set).getCapacity());
+    }
+
+    @Test
+    public void algebra() throws IOException {
+
+        IntSet evens = new IntSet(1000);
+        IntSet triples = new IntSet(1000);
+        for (int i = 0; i < 300; i++) {
+            evens.add(2 * i);
+            triples.add(3 * i);
+        }
+        MappedIntSet mapped = saveAndMap(evens);
+
+        assertArrayEquals(evens.intersect(triples).getArray(), mapped.intersect(triples).getArray());
+        assertArrayEquals(evens.union(triples).getArray(), mapped.union(triples).getArray());
+        assertArrayEquals(evens.difference(triples).getArray(), mapped.difference(triples).getArray());
+        assertArrayEquals(evens.symmDiff(triples).getArray(), mapped.symmDiff(triples).getArray());
+
+        IntSet few = new IntSet(10);
+        few.add(6);
+        few.add(7);
+        assertEquals("{6}", mapped.intersect(few).toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void notASet() throws IOException {
+
+        IntSet.load(new ByteArrayInputStream(new byte[40]));
+    }
+}
@@ -0,0 +1,128 @@
+package intSet;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OffHeapIntSetTest {
+
+    @Test
+    public void addHasRemove() {
+
+        try (OffHeapIntSet set = new OffHeapIntSet(3, -100, 100)) {
+            assertTrue(set.isEmpty());
+            set.add(-100);
+            set.add(100);
+            set.add(7);
+            set.add(7);
+            set.add(101);
+            set.add(8);
+            assertEquals(3, set.getCount());
+            assertTrue(set.has(-100));
+            assertTrue(set.has(100));
+            assertFalse(set.has(101));
+            assertFalse(set.has(8));
+
+            set.remove(7);
+            set.remove(9);
+            assertEquals(2, set.getCount());
+            assertEquals("{-100, 100}", set.toString());
+            assertArrayEquals(new int[] {-100, 100}, set.getArray());
+        }
+    }
+
+    @Test
+    public void extremeRanges() {
+
+        try (OffHeapIntSet low = new OffHeapIntSet(4, Integer.MIN_VALUE, Integer.MIN_VALUE + 200);
+                OffHeapIntSet high = new OffHeapIntSet(4, Integer.MAX_VALUE - 200, Integer.MAX_VALUE)) {
+            low.add(Integer.MIN_VALUE);
+            low.add(Integer.MIN_VALUE + 200);
+            high.add(Integer.MAX_VALUE);
+            high.add(Integer.MAX_VALUE - 200);
+            assertArrayEquals(new int[] {Integer.MIN_VALUE, Integer.MIN_VALUE + 200}, low.getArray());
+            assertArrayEquals(new int[] {Integer.MAX_VALUE - 200, Integer.MAX_VALUE}, high.getArray());
+            try (OffHeapIntSet difference = high.difference(low)) {
+                assertArrayEquals(high.getArray(), difference.getArray());
+            }
+            try (OffHeapIntSet intersect = low.intersect(high)) {
+                assertTrue(intersect.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void algebra() {
+
+        Random random = new Random(16);
+        try (OffHeapIntSet a = new OffHeapIntSet(10000, -3000, 5000);
+                OffHeapIntSet b = new OffHeapIntSet(10000, 1000, 12000)) {
+            IntSet heapA = new IntSet(10000);
+            IntSet heapB = new IntSet(10000);
+            for (int i = 0; i < 3000; i++) {
+                int value = random.nextInt(8001) - 3000;
+                a.add(value);
+                heapA.add(value);
+                value = random.nextInt(11001) + 1000;
+                b.add(value);
+                heapB.add(value);
+            }
+
+            try (OffHeapIntSet intersect = a.intersect(b);
+                    OffHeapIntSet union = a.union(b);
+                    OffHeapIntSet difference = a.difference(b);
+                    OffHeapIntSet symmDiff = a.symmDiff(b)) {
+                assertArrayEquals(sorted(heapA.intersect(heapB).getArray()), intersect.getArray());
+                assertArrayEquals(sorted(heapA.union(heapB).getArray()), union.getArray());
+                assertArrayEquals(sorted(heapA.difference(heapB).getArray()), difference.getArray());
+                assertArrayEquals(sorted(heapA.symmDiff(heapB).getArray()), symmDiff.getArray());
+                assertEquals(heapA.union(heapB).getCount(), union.getCount());
+            }
+        }
+    }
+
+    @Test
+    public void algebraRespectsCapacity() {
+
+        try (OffHeapIntSet a = new OffHeapIntSet(3, 0, 1000);
+                OffHeapIntSet b = new OffHeapIntSet(3, 0, 1000)) {
+            a.add(1);
+            a.add(500);
+            a.add(999);
+            b.add(2);
+            b.add(3);
+            try (OffHeapIntSet union = a.union(b)) {
+                assertArrayEquals(new int[] {1, 2, 3}, union.getArray());
+                assertEquals(3, union.getCount());
+            }
+        }
+    }
+
+    @Test
+    public void closed() {
+
+        OffHeapIntSet set = new OffHeapIntSet(10, 0, 10);
+        set.add(5);
+        set.close();
+        set.close();
+        assertTrue(set.isClosed());
+        assertEquals(10, set.getCapacity());
+        try {
+            set.has(5);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        try {
+            set.add(6);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    private static int[] sorted(int[] array) {
+        Arrays.sort(array);
+        return array;
+    }
+}
@@ -0,0 +1,125 @@
+package intSet;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PersistentIntSetTest {
+
+    @Test
+    public void versions() {
+
+        PersistentIntSet empty = new PersistentIntSet(3);
+        PersistentIntSet one = empty.with(5);
+        PersistentIntSet two = one.with(Integer.MIN_VALUE);
+        PersistentIntSet three = two.with(Integer.MAX_VALUE);
+        PersistentIntSet full = three.with(0);
+
+        assertTrue(empty.isEmpty());
+        assertEquals(1, one.getCount());
+        assertEquals("{5}", one.toString());
+        assertArrayEquals(new int[] {Integer.MIN_VALUE, 5, Integer.MAX_VALUE}, three.getArray());
+        assertSame(three, full);
+        assertSame(three, three.with(5));
+        assertSame(three, three.without(6));
+
+        PersistentIntSet removed = three.without(5);
+        assertFalse(removed.has(5));
+        assertTrue(three.has(5));
+        assertEquals(2, removed.getCount());
+        assertTrue(removed.without(Integer.MIN_VALUE).without(Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void algebra() {
+
+        Random random = new Random(11);
+        for (int round=0; round<20; round++) {
+            int range = round % 2 == 0 ? 1000 : 1 << 20;
+            PersistentIntSet a = new PersistentIntSet(4000);
+            PersistentIntSet b = new PersistentIntSet(4000);
+            TreeSet<Integer> expectedA = new TreeSet<>();
+            TreeSet<Integer> expectedB = new TreeSet<>();
+            for (int i=0; i<1000; i++) {
+                int value = random.nextInt(range) - range / 2;
+                a = a.with(value);
+                expectedA.add(value);
+                value = random.nextInt(range) - range / 2;
+                b = b.with(value);
+                expectedB.add(value);
+            }
+
+            TreeSet<Integer> expected = new TreeSet<>(expectedA);
+            expected.retainAll(expectedB);
+            assertContents(expected, a.intersect(b));
+            expected = new TreeSet<>(expectedA);
+            expected.addAll(expectedB);
+            assertContents(expected, a.union(b));
+            expected = new TreeSet<>(expectedA);
+            expected.removeAll(expectedB);
+            assertContents(expected, a.difference(b));
+            TreeSet<Integer> both = new TreeSet<>(expectedA);
+            both.retainAll(expectedB);
+            expected = new TreeSet<>(expectedA);
+            expected.addAll(expectedB);
+            expected.removeAll(both);
+            assertContents(expected, a.symmDiff(b));
+        }
+    }
+
+    @Test
+    public void sharing() {
+
+        PersistentIntSet a = new PersistentIntSet(10);
+        a = a.with(1).with(2).with(1 << 20);
+        PersistentIntSet b = a.with(3);
+
+        assertSame(a, a.intersect(a));
+        assertSame(a, a.union(a));
+        assertSame(b, a.union(b));
+        assertSame(a, b.intersect(a));
+        assertTrue(a.difference(a).isEmpty());
+        assertArrayEquals(new int[] {3}, b.symmDiff(a).getArray());
+    }
+
+    @Test
+    public void capacity() {
+
+        PersistentIntSet a = new PersistentIntSet(3).with(1).with(2).with(3);
+        PersistentIntSet b = new PersistentIntSet(3).with(-1).with(4);
+        PersistentIntSet union = a.union(b);
+
+        assertEquals(3, union.getCapacity());
+        assertArrayEquals(new int[] {-1, 1, 2}, union.getArray());
+    }
+
+    @Test
+    public void conversion() {
+
+        IntSet set = new IntSet(10);
+        set.add(3);
+        set.add(-7);
+        set.add(12);
+        PersistentIntSet persistent = PersistentIntSet.of(set);
+
+        assertEquals(10, persistent.getCapacity());
+        assertArrayEquals(new int[] {-7, 3, 12}, persistent.getArray());
+        assertEquals("{-7, 3, 12}", persistent.toIntSet().toString());
+    }
+
+    private static void assertContents(TreeSet<Integer> expected, PersistentIntSet set) {
+        int[] array = new int[expected.size()];
+        int n = 0;
+        for (int value : expected) {
+            array[n++] = value;
+        }
+        assertArrayEquals(array, set.getArray());
+        assertEquals(expected.size(), set.getCount());
+        for (int value : array) {
+            assertTrue(set.has(value));
+        }
+    }
+
+}
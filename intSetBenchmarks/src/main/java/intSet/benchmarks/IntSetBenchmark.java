@@ -0,0 +1,186 @@
+package intSet.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import intSet.IntSet;
+
+/**
+ * Measures the throughput of the IntSet operations for every representation.
+ * LIST is the original list of boxed values and serves as the baseline;
+ * ADAPTIVE is a set created without a representation, which picks its own.
+ * 
+ * Run it with "mvn package" followed by "java -jar target/benchmarks.jar",
+ * which adds the gc profiler so that the allocation rate is reported as well.
+ * Any JMH options, such as "-p size=1000", can be given after the jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntSetBenchmark {
+
+	/**
+	 * Number of values in each set.
+	 */
+	@Param({"10", "1000", "100000", "10000000"})
+	public int size;
+
+	/**
+	 * Fraction of the range of a set that holds a value.
+	 */
+	@Param({"0.01", "0.5", "1.0"})
+	public double density;
+
+	/**
+	 * Fraction of the values of one set that are also in the other set.
+	 */
+	@Param({"0.0", "0.5", "1.0"})
+	public double overlap;
+
+	@Param({"ADAPTIVE", "LIST", "BITMAP", "ROARING", "HASH", "SORTED"})
+	public String representation;
+
+	private IntSet set;
+	private IntSet other;
+
+	/**
+	 * Values to look up, alternately in and not in set.
+	 */
+	private int[] probes;
+
+	/**
+	 * Values that are in neither set.
+	 */
+	private int[] absent;
+	private int next;
+
+	/**
+	 * Builds two sets of size values each. The values of set are spread over
+	 * [-range, 0) at the given density. The first overlap * size values of
+	 * other are the same, the others lie at the same offsets in [0, range).
+	 */
+	@Setup
+	public void setUp() {
+		long range = (long) Math.ceil(size / density);
+		double gap = 1 / density;
+		int[] values = new int[size];
+		int[] otherValues = new int[size];
+		int shared = (int) (overlap * size);
+		for (int i=0; i<size; i++) {
+			values[i] = (int) (i * gap - range);
+			otherValues[i] = i < shared ? values[i] : (int) (i * gap);
+		}
+		set = create(values);
+		other = create(otherValues);
+
+		Random random = new Random(42);
+		probes = new int[1024];
+		absent = new int[probes.length];
+		for (int i=0; i<probes.length; i++) {
+			int value = values[random.nextInt(size)];
+			absent[i] = (int) (value + range + range);
+			probes[i] = i % 2 == 0 ? value : absent[i];
+		}
+	}
+
+	/**
+	 * Creates a set of the benchmarked representation with the given values.
+	 * Large lists are too slow to fill one value at a time, so the values are
+	 * first added to a set that picks its own representation and then copied
+	 * in a single union.
+	 */
+	private IntSet create(int[] values) {
+		IntSet filled = new IntSet(2 * size);
+		for (int value : values) {
+			filled.add(value);
+		}
+		if (representation.equals("ADAPTIVE")) {
+			return filled;
+		}
+		return new IntSet(2 * size, IntSet.Representation.valueOf(representation)).union(filled);
+	}
+
+	@Benchmark
+	public boolean has() {
+		next = (next + 1) & (probes.length - 1);
+		return set.has(probes[next]);
+	}
+
+	/**
+	 * Adds a value and removes it again, so that the set stays the same
+	 * throughout the measurement.
+	 */
+	@Benchmark
+	public boolean addRemove() {
+		next = (next + 1) & (absent.length - 1);
+		int value = absent[next];
+		set.add(value);
+		set.remove(value);
+		return set.isEmpty();
+	}
+
+	@Benchmark
+	public IntSet intersect() {
+		return set.intersect(other);
+	}
+
+	@Benchmark
+	public IntSet union() {
+		return set.union(other);
+	}
+
+	@Benchmark
+	public IntSet difference() {
+		return set.difference(other);
+	}
+
+	@Benchmark
+	public IntSet symmDiff() {
+		return set.symmDiff(other);
+	}
+
+	@Benchmark
+	public int[] getArray() {
+		return set.getArray();
+	}
+
+	@Benchmark
+	public String toStringBenchmark() {
+		return set.toString();
+	}
+
+	/**
+	 * Runs the benchmarks named on the command line, or this class if none are.
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions options = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(options).addProfiler(GCProfiler.class);
+		if (options.getIncludes().isEmpty()) {
+			builder.include(IntSetBenchmark.class.getSimpleName());
+		}
+		new Runner(builder.build()).run();
+	}
+
+}
@@ -0,0 +1,92 @@
+package intSet.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import intSet.IntSet;
+
+/**
+ * Compares the unrolled kernels of IntSet with the plain loops, on the
+ * operations they are used for: combining and counting bitmaps, and looking
+ * up values in sorted arrays. JMH runs every kernel in a fresh JVM, and the
+ * kernel is picked before the first set is created.
+ * 
+ * Run it with "java -jar target/benchmarks.jar KernelBenchmark".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark {
+
+	@Param({"unrolled", "scalar"})
+	public String kernel;
+
+	/**
+	 * Number of values each bitmap spans, half of which are in it.
+	 */
+	@Param({"4096", "1048576", "67108864"})
+	public int span;
+
+	/**
+	 * Number of values in the sorted sets that are looked up in.
+	 */
+	@Param({"16", "1000", "1000000"})
+	public int sortedSize;
+
+	private IntSet bitmap;
+	private IntSet otherBitmap;
+	private IntSet sorted;
+	private int[] probes;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		System.setProperty("intSet.kernels", kernel);
+		Random random = new Random(42);
+		bitmap = new IntSet(span, IntSet.Representation.BITMAP);
+		otherBitmap = new IntSet(span, IntSet.Representation.BITMAP);
+		bitmap.addAll(random.ints(span / 2, 0, span).toArray());
+		otherBitmap.addAll(random.ints(span / 2, 0, span).toArray());
+
+		sorted = new IntSet(sortedSize, IntSet.Representation.SORTED);
+		sorted.addAll(random.ints(sortedSize, 0, 4 * sortedSize).toArray());
+		probes = random.ints(1024, 0, 4 * sortedSize).toArray();
+	}
+
+	@Benchmark
+	public IntSet intersect() {
+		return bitmap.intersect(otherBitmap);
+	}
+
+	@Benchmark
+	public IntSet union() {
+		return bitmap.union(otherBitmap);
+	}
+
+	@Benchmark
+	public int intersectionCount() {
+		return bitmap.intersectionCount(otherBitmap);
+	}
+
+	@Benchmark
+	public boolean sortedHas() {
+		next = (next + 1) & (probes.length - 1);
+		return sorted.has(probes[next]);
+	}
+
+}